@@ -31,12 +31,28 @@ CREATE TABLE `chunk`  (
                           `total_size` bigint NOT NULL COMMENT '总文件大小（byte）',
                           `chunk_size` bigint NOT NULL COMMENT '每个分片大小（byte）',
                           `chunk_num` int NOT NULL COMMENT '分片数量',
+                          `storage` varchar(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '存储模式（local/minio/oss）',
                           `gmt_create` datetime NULL DEFAULT CURRENT_TIMESTAMP,
                           `gmt_modified` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                           PRIMARY KEY (`id`) USING BTREE,
                           UNIQUE INDEX `uq_file_identifier`(`identifier` ASC) USING BTREE
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '文件分片信息表' ROW_FORMAT = DYNAMIC;
 
+-- ----------------------------
+-- Table structure for chunk_part
+-- ----------------------------
+DROP TABLE IF EXISTS `chunk_part`;
+CREATE TABLE `chunk_part`  (
+                               `id` bigint NOT NULL,
+                               `chunk_id` bigint NOT NULL COMMENT '所属分片任务id',
+                               `part_number` int NOT NULL COMMENT '分片序号，从1开始',
+                               `etag` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '分片ETag',
+                               `size` bigint NOT NULL COMMENT '分片大小（byte）',
+                               `gmt_create` datetime NULL DEFAULT CURRENT_TIMESTAMP,
+                               PRIMARY KEY (`id`) USING BTREE,
+                               UNIQUE INDEX `uq_chunk_part`(`chunk_id` ASC, `part_number` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '分片上传记录表' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for file
 -- ----------------------------
@@ -48,12 +64,19 @@ CREATE TABLE `file`  (
                          `file_size` bigint NULL DEFAULT NULL COMMENT '文件大小，字节，冗余存储',
                          `object_key` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '文件的key, 格式 日期/md5.拓展名，比如 2025-03-13/921674fd-cdaf-459a-be7b-109469e7050d.png',
                          `identifier` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '唯一标识，文件MD5',
+                         `derivatives` varchar(512) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '衍生图列表，逗号分隔，如 w160.webp,w640.webp',
+                         `storage` varchar(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '存储模式（local/minio/oss）',
                          `create_by` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '创建者',
                          `update_by` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '更新者',
                          `gmt_create` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
                          `gmt_modified` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+                         `gmt_access` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最后读取时间',
                          `is_deleted` tinyint(1) NULL DEFAULT 0 COMMENT '逻辑删除（0：未删除 1：已删除）',
-                         PRIMARY KEY (`id`) USING BTREE
+                         PRIMARY KEY (`id`) USING BTREE,
+                         INDEX `idx_file_identifier`(`identifier` ASC) USING BTREE,
+                         INDEX `idx_file_gmt_create`(`gmt_create` ASC) USING BTREE,
+                         INDEX `idx_file_name`(`file_name` ASC) USING BTREE,
+                         INDEX `idx_file_storage_access`(`storage` ASC, `gmt_access` ASC) USING BTREE
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '用户文件表' ROW_FORMAT = DYNAMIC;
 
 SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,11 @@
+-- 新增分片上传记录表，用于本地记录已上传分片，进度查询与合并不再依赖ListParts
+CREATE TABLE IF NOT EXISTS `chunk_part`  (
+                               `id` bigint NOT NULL,
+                               `chunk_id` bigint NOT NULL COMMENT '所属分片任务id',
+                               `part_number` int NOT NULL COMMENT '分片序号，从1开始',
+                               `etag` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '分片ETag',
+                               `size` bigint NOT NULL COMMENT '分片大小（byte）',
+                               `gmt_create` datetime NULL DEFAULT CURRENT_TIMESTAMP,
+                               PRIMARY KEY (`id`) USING BTREE,
+                               UNIQUE INDEX `uq_chunk_part`(`chunk_id` ASC, `part_number` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '分片上传记录表' ROW_FORMAT = DYNAMIC;
@@ -0,0 +1,4 @@
+-- 为file表增加identifier与gmt_create索引，秒传与删除按identifier单点查询，列表按gmt_create排序
+-- 历史数据中identifier可能存在重复，因此使用普通索引而非唯一索引
+ALTER TABLE `file` ADD INDEX `idx_file_identifier`(`identifier` ASC) USING BTREE;
+ALTER TABLE `file` ADD INDEX `idx_file_gmt_create`(`gmt_create` ASC) USING BTREE;
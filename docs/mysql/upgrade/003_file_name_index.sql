@@ -0,0 +1,2 @@
+-- 文件列表按文件名前缀过滤，为file_name增加索引
+ALTER TABLE `file` ADD INDEX `idx_file_name`(`file_name` ASC) USING BTREE;
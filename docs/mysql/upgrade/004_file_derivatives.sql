@@ -0,0 +1,2 @@
+-- 图片上传后异步生成缩略图等衍生图，记录已生成的衍生图
+ALTER TABLE `file` ADD COLUMN `derivatives` varchar(512) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '衍生图列表，逗号分隔，如 w160.webp,w640.webp' AFTER `identifier`;
@@ -0,0 +1,2 @@
+-- 记录分片任务所在的存储模式，运行时切换存储后未完成的分片上传仍路由到原存储；为空时使用当前存储
+ALTER TABLE `chunk` ADD COLUMN `storage` varchar(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '存储模式（local/minio/oss）' AFTER `chunk_num`;
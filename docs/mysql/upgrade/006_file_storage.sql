@@ -0,0 +1,7 @@
+-- 记录文件所在存储与最后读取时间，读取与删除按文件所在存储路由，冷热分层按读取时间迁移
+ALTER TABLE `file` ADD COLUMN `storage` varchar(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '存储模式（local/minio/oss）' AFTER `derivatives`;
+ALTER TABLE `file` ADD COLUMN `gmt_access` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最后读取时间' AFTER `gmt_modified`;
+UPDATE `file` SET `gmt_access` = `gmt_create`;
+ALTER TABLE `file` ADD INDEX `idx_file_storage_access`(`storage` ASC, `gmt_access` ASC) USING BTREE;
+-- 已有文件的存储为空时按 upload.strategy 处理，如需明确记录可执行（将 oss 替换为升级前使用的存储）：
+-- UPDATE `file` SET `storage` = 'oss' WHERE `storage` IS NULL;
@@ -0,0 +1,98 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次JMH运行结果
+ * <p>
+ * 读取 -rf json 输出的结果文件，按基准方法与参数逐项打印基线值、本次值与变化比例。
+ * 吞吐量模式下数值越大越好，其余模式越小越好，变化超过阈值（默认10%）时标记为回退或提升
+ * </p>
+ * 用法：BenchmarkCompare &lt;baseline.json&gt; &lt;current.json&gt; [阈值百分比]
+ * @author shelly
+ */
+public final class BenchmarkCompare {
+
+    private BenchmarkCompare() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("用法: BenchmarkCompare <baseline.json> <current.json> [阈值百分比]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        compare(load(args[0]), load(args[1]), threshold, System.out);
+    }
+
+    /**
+     * 逐项打印对比结果
+     * @return 回退项数
+     */
+    static int compare(Map<String, JSONObject> baseline, Map<String, JSONObject> current, double threshold, PrintStream out) {
+        int regressions = 0;
+        out.printf("%-70s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+            JSONObject now = entry.getValue();
+            JSONObject before = baseline.get(entry.getKey());
+            double score = score(now);
+            String unit = now.getJSONObject("primaryMetric").getStr("scoreUnit");
+            if (before == null) {
+                out.printf("%-70s %14s %14.3f %9s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double base = score(before);
+            double change = base == 0 ? 0 : (score - base) / base * 100;
+            // 吞吐量越大越好，耗时越小越好
+            double gain = "thrpt".equals(now.getStr("mode")) ? change : -change;
+            String mark = gain <= -threshold ? "  回退" : gain >= threshold ? "  提升" : "";
+            if (gain <= -threshold) {
+                regressions++;
+            }
+            out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), base, score, change, unit, mark);
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> out.printf("%-70s %14.3f %14s %9s%n", key, score(baseline.get(key)), "-", "missing"));
+        out.printf("%n共 %d 项，回退 %d 项（阈值 %.0f%%）%n", current.size(), regressions, threshold);
+        return regressions;
+    }
+
+    /**
+     * 读取结果文件，以“基准方法 参数”为键
+     */
+    static Map<String, JSONObject> load(String path) {
+        JSONArray results;
+        try {
+            results = JSONUtil.parseArray(Files.readString(Path.of(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, JSONObject> map = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String name = result.getStr("benchmark").replace("cn.org.shelly.picporter.benchmark.", "");
+            JSONObject params = result.getJSONObject("params");
+            if (params != null && !params.isEmpty()) {
+                name += " " + new TreeMap<>(params);
+            }
+            map.put(name, result);
+        }
+        return map;
+    }
+
+    private static double score(JSONObject result) {
+        return result.getJSONObject("primaryMetric").getDouble("score");
+    }
+}
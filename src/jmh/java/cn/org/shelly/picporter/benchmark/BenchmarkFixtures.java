@@ -0,0 +1,258 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.org.shelly.picporter.config.properties.DerivativeProperties;
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import cn.org.shelly.picporter.config.properties.MinioProperties;
+import cn.org.shelly.picporter.config.properties.PartUploadProperties;
+import cn.org.shelly.picporter.mapper.FileMapper;
+import cn.org.shelly.picporter.model.po.Chunk;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.service.IChunkPartService;
+import cn.org.shelly.picporter.service.IChunkService;
+import cn.org.shelly.picporter.service.IIdentifierFilterService;
+import cn.org.shelly.picporter.strategy.UploadMetrics;
+import cn.org.shelly.picporter.strategy.StorageRegistry;
+import cn.org.shelly.picporter.strategy.impl.AbstractUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.LocalUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * 基准测试夹具
+ * <p>
+ * 不启动Spring容器，直接构建上传策略并注入替身：存储使用 {@link InMemoryS3} 或临时目录，
+ * 数据库相关的Mapper与Service使用动态代理返回固定数据，布隆过滤器始终判定不存在
+ * </p>
+ * @author shelly
+ */
+public final class BenchmarkFixtures {
+
+    public static final String BUCKET_NAME = "bench";
+
+    public static final String PREFIX = "bench";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 构建使用内存S3的MinIO上传策略
+     * @param files list查询返回的记录
+     * @param task 分片任务查询返回的任务
+     * @param executor 文章图片上传线程池
+     */
+    public static MinioUploadStrategyImpl minio(List<File> files, Chunk task, ExecutorService executor) {
+        MinioProperties properties = new MinioProperties();
+        properties.url = "http://localhost:9000";
+        properties.bucketName = BUCKET_NAME;
+        properties.prefix = PREFIX;
+        properties.afterPropertiesSet();
+        MinioUploadStrategyImpl strategy = new MinioUploadStrategyImpl();
+        ReflectUtil.setFieldValue(strategy, "minioProperties", properties);
+        ReflectUtil.setFieldValue(strategy, "amazonS3Client", new InMemoryS3());
+        return wire(strategy, files, task, executor);
+    }
+
+    /**
+     * 构建使用临时目录的本地上传策略
+     * @param dir 临时目录，存储根目录与分片临时目录分别为其下的 objects、parts
+     * @param executor 文章图片上传线程池
+     */
+    public static LocalUploadStrategyImpl local(Path dir, ExecutorService executor) throws IOException {
+        LocalProperties properties = new LocalProperties();
+        properties.setPath(dir.resolve("objects").toString());
+        properties.setPartPath(dir.resolve("parts").toString());
+        LocalUploadStrategyImpl strategy = new LocalUploadStrategyImpl();
+        ReflectUtil.setFieldValue(strategy, "localProperties", properties);
+        strategy.initRoot();
+        return wire(strategy, Collections.emptyList(), null, executor);
+    }
+
+    /**
+     * 文章图片上传线程池，与 {@code partUploadExecutor} 的默认大小一致
+     */
+    public static ExecutorService executor() {
+        return Executors.newFixedThreadPool(new PartUploadProperties().getPoolSize());
+    }
+
+    /**
+     * 使用内存注册表的监控指标，与线上一样计入每次调用的记录开销
+     */
+    public static UploadMetrics metrics() {
+        UploadMetrics metrics = new UploadMetrics();
+        ReflectUtil.setFieldValue(metrics, "meterRegistry", new SimpleMeterRegistry());
+        return metrics;
+    }
+
+    /**
+     * 生成list查询记录，每隔一条带两张衍生图
+     * @param count 记录数
+     */
+    public static List<File> files(int count) {
+        List<File> files = new ArrayList<>(count);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            files.add(File.builder()
+                    .id((long) i + 1)
+                    .identifier(String.format("%032x", i))
+                    .fileName("image-" + i + ".png")
+                    .fileSize(1024L * (i + 1))
+                    .fileSuffix("png")
+                    .objectKey(PREFIX + "/" + String.format("%032x", i) + ".png")
+                    .derivatives(i % 2 == 0 ? "w160.jpg,w640.jpg" : null)
+                    .gmtCreate(new Date(now - i * 1000L))
+                    .build());
+        }
+        return files;
+    }
+
+    /**
+     * 删除目录下全部文件
+     */
+    public static void clean(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Collections.reverseOrder()).filter(p -> !p.equals(dir)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static <T extends AbstractUploadStrategyImpl> T wire(T strategy, List<File> files, Chunk task, ExecutorService executor) {
+        DerivativeProperties derivativeProperties = new DerivativeProperties();
+        derivativeProperties.setEnabled(false);
+        ReflectUtil.setFieldValue(strategy, "prefix", PREFIX);
+        ReflectUtil.setFieldValue(strategy, "isStored", true);
+        ReflectUtil.setFieldValue(strategy, "verifyDigest", true);
+        ReflectUtil.setFieldValue(strategy, "articleConcurrency", 8);
+        ReflectUtil.setFieldValue(strategy, "imageCacheCapacity", 4096);
+        ReflectUtil.setFieldValue(strategy, "digestCacheCapacity", 1024);
+        ReflectUtil.setFieldValue(strategy, "digestCacheTtl", 1800000L);
+        ReflectUtil.setFieldValue(strategy, "batchMaxFiles", 50);
+        ReflectUtil.setFieldValue(strategy, "batchConcurrency", 8);
+        ReflectUtil.setFieldValue(strategy, "partUploadProperties", new PartUploadProperties());
+        ReflectUtil.setFieldValue(strategy, "partUploadExecutor", executor);
+        ReflectUtil.setFieldValue(strategy, "proxyUploadExecutor", executor);
+        ReflectUtil.setFieldValue(strategy, "derivativeProperties", derivativeProperties);
+        // 替身记录未带存储模式，按 upload.strategy 即当前策略路由
+        StorageRegistry storageRegistry = new StorageRegistry();
+        ReflectUtil.setFieldValue(storageRegistry, "defaultStorage", strategy.getMode().getMode());
+        ReflectUtil.setFieldValue(strategy, "storageRegistry", storageRegistry);
+        ReflectUtil.setFieldValue(strategy, "uploadMetrics", metrics());
+        ReflectUtil.setFieldValue(strategy, "identifierFilterService", stub(IIdentifierFilterService.class, Map.of()));
+        ReflectUtil.setFieldValue(strategy, "chunkPartService", stub(IChunkPartService.class, Map.of()));
+        ReflectUtil.setFieldValue(strategy, "chunkService", stub(IChunkService.class,
+                Map.of("getTaskByIdentifier", args -> task)));
+        ReflectUtil.setFieldValue(strategy, "fileMapper", stub(FileMapper.class, Map.of(
+                "insert", args -> 1,
+                "selectList", args -> files,
+                "selectPage", args -> {
+                    @SuppressWarnings("unchecked")
+                    IPage<File> page = (IPage<File>) args[0];
+                    return page.setRecords(files).setTotal(files.size());
+                })));
+        strategy.init();
+        return strategy;
+    }
+
+    /**
+     * 接口替身，未列出的方法返回对应类型的零值
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + "Stub";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> zero(method.getReturnType());
+            };
+        });
+    }
+
+    private static Object zero(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        return type == char.class ? (Object) '\0' : (Object) 0;
+    }
+
+    /**
+     * 基于字节数组的上传文件
+     */
+    public record BytesMultipartFile(String name, String contentType, byte[] content) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return name;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void transferTo(java.io.File dest) throws IOException {
+            Files.write(dest.toPath(), content);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.org.shelly.picporter.config.properties.RoutingProperties;
+import cn.org.shelly.picporter.strategy.UploadStrategy;
+import cn.org.shelly.picporter.strategy.context.UploadStrategyContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传策略分发基准
+ * <p>
+ * 通过 {@link UploadStrategyContext#test()} 测量每次调用分发到当前策略的开销，策略本身只返回常量
+ * </p>
+ * @author shelly
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private ExecutorService executor;
+
+    private UploadStrategy strategy;
+
+    private UploadStrategyContext context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = BenchmarkFixtures.executor();
+        strategy = BenchmarkFixtures.minio(Collections.emptyList(), null, executor);
+        context = new UploadStrategyContext();
+        ReflectUtil.setFieldValue(context, "uploadStrategy", "minio");
+        ReflectUtil.setFieldValue(context, "uploadStrategyMap", Map.of("minioUploadStrategyImpl", strategy));
+        ReflectUtil.setFieldValue(context, "uploadMetrics", BenchmarkFixtures.metrics());
+        ReflectUtil.setFieldValue(context, "routingProperties", new RoutingProperties());
+        context.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public String context() {
+        return context.test();
+    }
+
+    /**
+     * 直接调用策略，作为分发开销的参照
+     */
+    @Benchmark
+    public String direct() {
+        return strategy.test();
+    }
+}
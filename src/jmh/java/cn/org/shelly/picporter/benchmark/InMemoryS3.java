@@ -0,0 +1,89 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+/**
+ * 基准测试用的内存S3替身
+ * <p>
+ * 只实现上传策略用到的接口：完整读取请求数据并像S3一样以MD5作为ETag返回，但不保留对象内容，
+ * 长时间压测时内存不会增长。测得的是服务端自身的开销，不含网络与存储耗时
+ * </p>
+ * @author shelly
+ */
+public class InMemoryS3 extends AbstractAmazonS3 {
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(drain(input));
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(drain(request.getInputStream()));
+        return result;
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(UUID.randomUUID().toString());
+        return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setETag(UUID.randomUUID().toString());
+        return result;
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        return new PartListing();
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String objectName) {
+        return false;
+    }
+
+    private static String drain(InputStream input) {
+        MessageDigest digest = SecureUtil.md5().getDigest();
+        byte[] buffer = BUFFER.get();
+        try (InputStream in = input) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+}
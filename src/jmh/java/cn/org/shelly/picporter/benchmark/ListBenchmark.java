@@ -0,0 +1,71 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.org.shelly.picporter.model.resp.FileInfoResp;
+import cn.org.shelly.picporter.model.resp.PageResp;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件列表映射基准
+ * <p>
+ * 查询由替身直接返回记录，测得的是查询条件构建与记录到响应对象的转换开销
+ * </p>
+ * @author shelly
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+    /**
+     * 每页记录数
+     */
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ExecutorService executor;
+
+    private MinioUploadStrategyImpl strategy;
+
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = BenchmarkFixtures.executor();
+        strategy = BenchmarkFixtures.minio(BenchmarkFixtures.files(pageSize), null, executor);
+        cursor = System.currentTimeMillis() + "_" + Integer.MAX_VALUE;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public PageResp<FileInfoResp> page() {
+        return strategy.list(null, 1, pageSize, null);
+    }
+
+    @Benchmark
+    public PageResp<FileInfoResp> cursor() {
+        return strategy.list("image", 1, pageSize, cursor);
+    }
+}
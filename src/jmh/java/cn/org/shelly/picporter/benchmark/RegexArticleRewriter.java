@@ -0,0 +1,61 @@
+package cn.org.shelly.picporter.benchmark;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 改写器替换前基于正则的实现，仅作为 {@link TransferBenchmark} 的对照
+ * <p>
+ * 与原 transfer 中的两遍正则扫描保持一致：先提取路径，再逐个匹配替换
+ * </p>
+ * @author shelly
+ */
+final class RegexArticleRewriter {
+
+    private static final Pattern IMAGE_PATTERN = Pattern.compile(
+            "<img\\b[^>]*src\\s*=\\s*(['\"])(.*?)\\1[^>]*>|!\\[[^\\]]*\\]\\((.*?)\\)", Pattern.CASE_INSENSITIVE);
+
+    private RegexArticleRewriter() {
+    }
+
+    static Set<String> collect(String content) {
+        Set<String> paths = new LinkedHashSet<>();
+        Matcher matcher = IMAGE_PATTERN.matcher(content);
+        while (matcher.find()) {
+            paths.add(imagePath(matcher));
+        }
+        return paths;
+    }
+
+    static String rewrite(String content, UnaryOperator<String> mapper) {
+        StringBuilder buffer = new StringBuilder(content.length());
+        Matcher matcher = IMAGE_PATTERN.matcher(content);
+        while (matcher.find()) {
+            String path = imagePath(matcher);
+            String uploadedUrl = mapper.apply(path);
+            if (uploadedUrl != null) {
+                String original = matcher.group(0);
+                String replaced;
+                if (matcher.group(2) != null) {
+                    String quote = matcher.group(1);
+                    replaced = original.replace("src=" + quote + path + quote, "src=" + quote + uploadedUrl + quote);
+                } else {
+                    replaced = original.replace(path, uploadedUrl);
+                }
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement(replaced));
+            }
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * 获取匹配到的图片路径，HTML为第2组，Markdown为第3组
+     */
+    private static String imagePath(Matcher matcher) {
+        return matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+    }
+}
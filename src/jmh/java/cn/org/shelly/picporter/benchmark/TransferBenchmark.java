@@ -0,0 +1,161 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.org.shelly.picporter.model.req.ArticleReq;
+import cn.org.shelly.picporter.model.resp.ArticleResp;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import cn.org.shelly.picporter.utils.ArticleImageRewriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文章图片替换基准
+ * <p>
+ * 文章按给定大小由Markdown与HTML段落拼接而成，本地图片指向临时文件。
+ * 图片内容MD5缓存在首次调用后即命中，测得的是稳定状态下提取、计算摘要与改写的开销
+ * </p>
+ * @author shelly
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    /**
+     * 文章大小（KB）
+     */
+    @Param({"4", "64", "1024"})
+    public int articleKb;
+
+    /**
+     * 本地图片数量
+     */
+    @Param({"0", "10", "100"})
+    public int images;
+
+    private Path dir;
+
+    private ExecutorService executor;
+
+    private MinioUploadStrategyImpl strategy;
+
+    private ArticleReq req;
+
+    private Map<String, String> urls;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("bench-article-");
+        executor = BenchmarkFixtures.executor();
+        strategy = BenchmarkFixtures.minio(Collections.emptyList(), null, executor);
+        List<String> paths = new ArrayList<>(images);
+        urls = new HashMap<>(images);
+        for (int i = 0; i < images; i++) {
+            Path image = dir.resolve("image-" + i + ".png");
+            byte[] data = new byte[16 * 1024];
+            data[0] = (byte) i;
+            data[1] = (byte) (i >> 8);
+            Files.write(image, data);
+            paths.add(image.toString());
+            urls.put(image.toString(), "http://localhost:9000/bench/" + i + ".png");
+        }
+        req = new ArticleReq();
+        req.setTitle("bench");
+        req.setContent(article(articleKb * 1024, paths));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        BenchmarkFixtures.clean(dir);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public ArticleResp transfer() {
+        return strategy.transfer(req);
+    }
+
+    /**
+     * 仅改写链接，不含上传，用于观察扫描本身随文章大小的变化
+     */
+    @Benchmark
+    public String rewrite() {
+        return ArticleImageRewriter.rewrite(req.getContent(), urls::get);
+    }
+
+    /**
+     * 原正则实现的改写，作为 {@link #rewrite()} 的对照
+     */
+    @Benchmark
+    public String regexRewrite() {
+        return RegexArticleRewriter.rewrite(req.getContent(), urls::get);
+    }
+
+    /**
+     * 仅提取图片路径
+     */
+    @Benchmark
+    public Set<String> collect() {
+        return ArticleImageRewriter.collect(req.getContent());
+    }
+
+    /**
+     * 原正则实现的提取，作为 {@link #collect()} 的对照
+     */
+    @Benchmark
+    public Set<String> regexCollect() {
+        return RegexArticleRewriter.collect(req.getContent());
+    }
+
+    /**
+     * 生成指定大小的文章，图片链接均匀分布，Markdown与HTML写法交替出现
+     */
+    static String article(int size, List<String> paths) {
+        String paragraph = "PicPorter 会把文章中的本地图片上传到对象存储并替换为访问地址，正文内容保持不变。\n\n";
+        StringBuilder sb = new StringBuilder(size + paths.size() * 128);
+        int step = paths.isEmpty() ? Integer.MAX_VALUE : Math.max(1, size / paths.size());
+        int next = 0;
+        int index = 0;
+        while (sb.length() < size || index < paths.size()) {
+            if (index < paths.size() && sb.length() >= next) {
+                String path = paths.get(index);
+                if (index % 2 == 0) {
+                    sb.append("![image-").append(index).append("](").append(path).append(")\n\n");
+                } else {
+                    sb.append("<img alt=\"image-").append(index).append("\" src=\"").append(path).append("\">\n\n");
+                }
+                index++;
+                next += step;
+            } else {
+                sb.append(paragraph);
+            }
+        }
+        return sb.toString();
+    }
+}
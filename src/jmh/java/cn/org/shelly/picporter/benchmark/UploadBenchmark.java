@@ -0,0 +1,118 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.crypto.SecureUtil;
+import cn.org.shelly.picporter.model.po.Chunk;
+import cn.org.shelly.picporter.model.req.FileUploadReq;
+import cn.org.shelly.picporter.strategy.impl.LocalUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 简单上传与分片上传基准
+ * <p>
+ * MinIO策略对接 {@link InMemoryS3}，只计入MD5校验、流转发与记录写入等服务端开销；
+ * 本地策略写入临时目录，包含落盘与原子重命名，每轮迭代结束后清理
+ * </p>
+ * @author shelly
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadBenchmark {
+
+    /**
+     * 文件或分片大小（KB）
+     */
+    @Param({"64", "1024", "8192"})
+    public int sizeKb;
+
+    private Path dir;
+
+    private ExecutorService executor;
+
+    private MinioUploadStrategyImpl minio;
+
+    private LocalUploadStrategyImpl local;
+
+    private FileUploadReq req;
+
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        data = new byte[sizeKb * 1024];
+        ThreadLocalRandom.current().nextBytes(data);
+        String identifier = SecureUtil.md5().digestHex(data);
+        Chunk task = Chunk.builder()
+                .id(1L)
+                .identifier(identifier)
+                .uploadId("bench-upload")
+                .fileName("bench.bin")
+                .bucketName(BenchmarkFixtures.BUCKET_NAME)
+                .objectKey(BenchmarkFixtures.PREFIX + "/bench.bin")
+                .totalSize((long) data.length * 1000)
+                .chunkSize((long) data.length)
+                .chunkNum(1000)
+                .build();
+        executor = BenchmarkFixtures.executor();
+        minio = BenchmarkFixtures.minio(Collections.emptyList(), task, executor);
+        dir = Files.createTempDirectory("bench-local-");
+        local = BenchmarkFixtures.local(dir, executor);
+        req = FileUploadReq.builder()
+                .fileName("bench.bin")
+                .identifier(identifier)
+                .size((long) data.length)
+                .file(new BenchmarkFixtures.BytesMultipartFile("bench.bin", "application/octet-stream", data))
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanIteration() throws IOException {
+        BenchmarkFixtures.clean(dir.resolve("objects").resolve(BenchmarkFixtures.PREFIX));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        BenchmarkFixtures.clean(dir);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public String uploadFile() throws IOException {
+        return minio.uploadFile(req);
+    }
+
+    @Benchmark
+    public boolean uploadPart() {
+        return minio.uploadPart(req.getIdentifier(), 2, data);
+    }
+
+    @Benchmark
+    public String uploadFileLocal() throws IOException {
+        return local.uploadFile(req);
+    }
+}
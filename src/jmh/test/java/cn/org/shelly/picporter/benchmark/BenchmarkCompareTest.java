@@ -0,0 +1,82 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 基准结果对比：吞吐量下降或耗时上升超过阈值计为回退，新增与缺失的项单独标记
+ * @author shelly
+ */
+class BenchmarkCompareTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadKeysByBenchmarkAndParams() throws IOException {
+        Map<String, JSONObject> results = load("baseline.json",
+                result("UploadBenchmark.uploadFile", "thrpt", 100, "{\"sizeKb\":\"64\"}"),
+                result("DispatchBenchmark.direct", "avgt", 5, null));
+        assertThat(results).containsOnlyKeys("UploadBenchmark.uploadFile {sizeKb=64}", "DispatchBenchmark.direct");
+    }
+
+    @Test
+    void regressionsFollowMode() throws IOException {
+        Map<String, JSONObject> baseline = load("baseline.json",
+                result("UploadBenchmark.uploadFile", "thrpt", 100, null),
+                result("UploadBenchmark.uploadPart", "thrpt", 100, null),
+                result("ListBenchmark.page", "avgt", 10, null),
+                result("ListBenchmark.cursor", "avgt", 10, null),
+                result("DispatchBenchmark.direct", "avgt", 5, null));
+        Map<String, JSONObject> current = load("current.json",
+                // 吞吐量下降20%：回退
+                result("UploadBenchmark.uploadFile", "thrpt", 80, null),
+                // 吞吐量上升20%：提升
+                result("UploadBenchmark.uploadPart", "thrpt", 120, null),
+                // 耗时上升20%：回退
+                result("ListBenchmark.page", "avgt", 12, null),
+                // 耗时变化在阈值内
+                result("ListBenchmark.cursor", "avgt", 10.5, null),
+                result("DispatchBenchmark.context", "avgt", 6, null));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int regressions = BenchmarkCompare.compare(baseline, current, 10,
+                new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String output = bytes.toString(StandardCharsets.UTF_8);
+
+        assertThat(regressions).isEqualTo(2);
+        assertThat(line(output, "UploadBenchmark.uploadFile")).endsWith("回退");
+        assertThat(line(output, "UploadBenchmark.uploadPart")).endsWith("提升");
+        assertThat(line(output, "ListBenchmark.page")).endsWith("回退");
+        assertThat(line(output, "ListBenchmark.cursor")).doesNotContain("回退", "提升");
+        assertThat(line(output, "DispatchBenchmark.context")).contains("new");
+        assertThat(line(output, "DispatchBenchmark.direct")).contains("missing");
+    }
+
+    private Map<String, JSONObject> load(String name, String... results) throws IOException {
+        Path path = dir.resolve(name);
+        Files.writeString(path, "[" + String.join(",", results) + "]");
+        return BenchmarkCompare.load(path.toString());
+    }
+
+    private static String result(String benchmark, String mode, double score, String params) {
+        return "{\"benchmark\":\"cn.org.shelly.picporter.benchmark." + benchmark + "\",\"mode\":\"" + mode + "\","
+                + (params == null ? "" : "\"params\":" + params + ",")
+                + "\"primaryMetric\":{\"score\":" + score + ",\"scoreUnit\":\"" + ("thrpt".equals(mode) ? "ops/s" : "us/op") + "\"}}";
+    }
+
+    private static String line(String output, String benchmark) {
+        return output.lines().filter(line -> line.startsWith(benchmark + " ")).findFirst().orElseThrow();
+    }
+}
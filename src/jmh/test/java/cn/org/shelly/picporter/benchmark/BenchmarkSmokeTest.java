@@ -0,0 +1,102 @@
+package cn.org.shelly.picporter.benchmark;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.org.shelly.picporter.model.resp.ArticleResp;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 不经JMH直接执行各基准的准备、方法与清理，确认夹具装配正确、被测路径真正走通而不是测到异常分支
+ * @author shelly
+ */
+class BenchmarkSmokeTest {
+
+    @Test
+    void upload() throws IOException {
+        UploadBenchmark benchmark = new UploadBenchmark();
+        benchmark.sizeKb = 64;
+        benchmark.setup();
+        Path dir = (Path) ReflectUtil.getFieldValue(benchmark, "dir");
+        try {
+            assertThat(benchmark.uploadFile()).startsWith("http://localhost:9000/" + BenchmarkFixtures.BUCKET_NAME + "/");
+            assertThat(benchmark.uploadPart()).isTrue();
+            assertThat(benchmark.uploadFileLocal()).isNotNull();
+            Path objects = dir.resolve("objects").resolve(BenchmarkFixtures.PREFIX);
+            assertThat(count(objects)).isEqualTo(1);
+            assertThat(Files.exists(dir.resolve("parts"))).isTrue();
+
+            benchmark.cleanIteration();
+            assertThat(count(objects)).isZero();
+        } finally {
+            benchmark.tearDown();
+        }
+        assertThat(Files.exists(dir)).isFalse();
+    }
+
+    @Test
+    void transfer() throws IOException {
+        TransferBenchmark benchmark = new TransferBenchmark();
+        benchmark.articleKb = 4;
+        benchmark.images = 10;
+        benchmark.setup();
+        try {
+            ArticleResp resp = benchmark.transfer();
+            assertThat(resp.getImageCount()).isEqualTo(10);
+            assertThat(resp.getUploadedCount()).isEqualTo(10);
+            assertThat(resp.getErrors()).isNullOrEmpty();
+            // 对照实现与改写器结果一致，两者的耗时才可比
+            assertThat(benchmark.collect()).hasSize(10).containsExactlyElementsOf(benchmark.regexCollect());
+            assertThat(benchmark.rewrite()).isEqualTo(benchmark.regexRewrite()).doesNotContain("image-0.png)");
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void article() {
+        String article = TransferBenchmark.article(4096, List.of("/tmp/a.png", "/tmp/b.png"));
+        assertThat(article.length()).isGreaterThanOrEqualTo(4096);
+        assertThat(article).contains("![image-0](/tmp/a.png)", "<img alt=\"image-1\" src=\"/tmp/b.png\">");
+        assertThat(TransferBenchmark.article(1024, List.of())).doesNotContain("image-");
+    }
+
+    @Test
+    void dispatch() {
+        DispatchBenchmark benchmark = new DispatchBenchmark();
+        benchmark.setup();
+        try {
+            assertThat(benchmark.context()).isEqualTo(benchmark.direct()).isNotNull();
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void list() {
+        ListBenchmark benchmark = new ListBenchmark();
+        benchmark.pageSize = 20;
+        benchmark.setup();
+        try {
+            assertThat(benchmark.page().getRecords()).hasSize(20);
+            assertThat(benchmark.cursor().getRecords()).hasSize(20);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private static long count(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package cn.org.shelly.picporter.loadtest;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 压测用的进程内S3替身
+ * <p>
+ * 替换 {@code amazonS3Client}，完整读取上传数据并以MD5作为ETag返回，只记录对象与分片的大小，不保留内容。
+ * 支持简单上传、分片上传全流程与中止、分片列举、存在性检查与删除，足以覆盖压测接口的调用；
+ * 读取返回与对象等长（或Range区间）的零字节，供冷热分层迁移复制
+ * </p>
+ * @author shelly
+ */
+public class InMemoryObjectStore extends AbstractAmazonS3 {
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    /**
+     * 对象键到对象大小
+     */
+    private final Map<String, Long> objects = new ConcurrentHashMap<>();
+
+    /**
+     * uploadId到已上传分片
+     */
+    private final Map<String, ConcurrentSkipListMap<Integer, PartSummary>> uploads = new ConcurrentHashMap<>();
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+        long[] size = new long[1];
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(drain(input, size));
+        objects.put(key, size[0]);
+        return result;
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentSkipListMap<>());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        ConcurrentSkipListMap<Integer, PartSummary> parts = parts(request.getUploadId());
+        long[] size = new long[1];
+        String etag = drain(request.getInputStream(), size);
+        PartSummary part = new PartSummary();
+        part.setPartNumber(request.getPartNumber());
+        part.setETag(etag);
+        part.setSize(size[0]);
+        parts.put(request.getPartNumber(), part);
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(etag);
+        return result;
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        PartListing listing = new PartListing();
+        listing.setParts(new ArrayList<>(parts(request.getUploadId()).values()));
+        listing.setTruncated(false);
+        return listing;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.getUploadId());
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        ConcurrentSkipListMap<Integer, PartSummary> parts = parts(request.getUploadId());
+        long size = 0;
+        for (PartETag partETag : request.getPartETags()) {
+            PartSummary part = parts.get(partETag.getPartNumber());
+            if (part == null || !part.getETag().equals(partETag.getETag())) {
+                throw error("InvalidPart", 400);
+            }
+            size += part.getSize();
+        }
+        uploads.remove(request.getUploadId());
+        objects.put(request.getKey(), size);
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setETag(UUID.randomUUID().toString().replace("-", "") + "-" + request.getPartETags().size());
+        return result;
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String objectName) {
+        return objects.containsKey(objectName);
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        Long size = objects.get(key);
+        if (size == null) {
+            throw error("NoSuchKey", 404);
+        }
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(size);
+        return metadata;
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        Long size = objects.get(request.getKey());
+        if (size == null) {
+            throw error("NoSuchKey", 404);
+        }
+        long start = 0;
+        long end = size - 1;
+        long[] range = request.getRange();
+        if (range != null) {
+            start = range[0];
+            end = Math.min(range[1], size - 1);
+        }
+        long length = Math.max(end - start + 1, 0);
+        S3Object object = new S3Object();
+        object.setBucketName(request.getBucketName());
+        object.setKey(request.getKey());
+        object.getObjectMetadata().setContentLength(length);
+        object.setObjectContent(new BoundedInputStream(length));
+        return object;
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        objects.remove(key);
+    }
+
+    private ConcurrentSkipListMap<Integer, PartSummary> parts(String uploadId) {
+        ConcurrentSkipListMap<Integer, PartSummary> parts = uploads.get(uploadId);
+        if (parts == null) {
+            throw error("NoSuchUpload", 404);
+        }
+        return parts;
+    }
+
+    private static AmazonS3Exception error(String code, int status) {
+        AmazonS3Exception e = new AmazonS3Exception(code);
+        e.setErrorCode(code);
+        e.setStatusCode(status);
+        return e;
+    }
+
+    private static String drain(InputStream input, long[] size) {
+        MessageDigest digest = SecureUtil.md5().getDigest();
+        byte[] buffer = BUFFER.get();
+        try (InputStream in = input) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+                size[0] += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 指定长度的零字节流
+     */
+    private static class BoundedInputStream extends InputStream {
+
+        private long remaining;
+
+        BoundedInputStream(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) {
+                return -1;
+            }
+            remaining--;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            Arrays.fill(b, off, off + n, (byte) 0);
+            remaining -= n;
+            return n;
+        }
+    }
+}
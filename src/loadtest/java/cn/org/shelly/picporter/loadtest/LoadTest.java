@@ -0,0 +1,457 @@
+package cn.org.shelly.picporter.loadtest;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import cn.org.shelly.picporter.Application;
+import cn.org.shelly.picporter.service.IIdentifierFilterService;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 端到端压测
+ * <p>
+ * 在同一进程内启动应用（H2内存数据库 + 进程内S3替身或本地存储），按配置的比例混合发起
+ * 秒传、小文件上传、完整分片上传流程（初始化 → 分片 × N → 合并）与列表查询，
+ * 预热后统计各接口的请求数、错误数、吞吐量与 p50/p99 延迟。
+ * 指定 rows 时启动前直接向file表写入对应行数的记录，用于测量秒传（布隆过滤器 + 按标识查询）随表规模的延迟变化
+ * </p>
+ * 参数均为 --key=value 形式，未识别的参数原样传给应用，用法见 docs/loadtest/README.md
+ * @author shelly
+ */
+public class LoadTest {
+
+    private static final int KB = 1024;
+
+    private static final double MB = 1024 * 1024;
+
+    /**
+     * upload.bloom-filter.expected-insertions 的默认值
+     */
+    private static final long DEFAULT_EXPECTED_INSERTIONS = 1_000_000;
+
+    /**
+     * 预置文件记录时每批写入的行数
+     */
+    private static final int SEED_BATCH_SIZE = 5000;
+
+    /**
+     * 压测参数及默认值
+     */
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("url", "");
+        DEFAULTS.put("strategy", "minio");
+        DEFAULTS.put("concurrency", "16");
+        DEFAULTS.put("warmup", "10");
+        DEFAULTS.put("duration", "60");
+        DEFAULTS.put("mix", "second=40,tiny=30,chunked=10,list=20");
+        DEFAULTS.put("second-hit-ratio", "0.5");
+        DEFAULTS.put("tiny-size", "64");
+        DEFAULTS.put("part-size", "1024");
+        DEFAULTS.put("parts", "8");
+        DEFAULTS.put("page-size", "20");
+        DEFAULTS.put("seed", "200");
+        DEFAULTS.put("rows", "0");
+        DEFAULTS.put("output", "target/loadtest-result.json");
+    }
+
+    private final Map<String, String> options;
+
+    private final PicPorterClient client;
+
+    private final int tinySize;
+
+    private final int partSize;
+
+    private final int parts;
+
+    private final double secondHitRatio;
+
+    private final int pageSize;
+
+    private final String[] ops;
+
+    private final int[] weights;
+
+    /**
+     * 已上传文件的标识，供秒传命中使用
+     */
+    private final AtomicReferenceArray<String> identifiers = new AtomicReferenceArray<>(4096);
+
+    private final AtomicLong identifierCount = new AtomicLong();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 预置的file表记录数，秒传命中时从中随机选择
+     */
+    private final long rows;
+
+    private volatile Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    LoadTest(Map<String, String> options, String baseUrl) {
+        this.options = options;
+        this.client = new PicPorterClient(baseUrl);
+        this.tinySize = Integer.parseInt(options.get("tiny-size")) * KB;
+        this.partSize = Integer.parseInt(options.get("part-size")) * KB;
+        this.parts = Integer.parseInt(options.get("parts"));
+        this.secondHitRatio = Double.parseDouble(options.get("second-hit-ratio"));
+        this.pageSize = Integer.parseInt(options.get("page-size"));
+        this.rows = Long.parseLong(options.get("rows"));
+        String[] entries = options.get("mix").split(",");
+        this.ops = new String[entries.length];
+        this.weights = new int[entries.length];
+        int total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] kv = entries[i].trim().split("=");
+            ops[i] = kv[0].trim();
+            total += Integer.parseInt(kv[1].trim());
+            weights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        Map<String, String> appArgs = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            (DEFAULTS.containsKey(key) ? options : appArgs).put(key, value);
+        }
+        ConfigurableApplicationContext context = null;
+        Path storage = null;
+        String baseUrl = options.get("url");
+        long rows = Long.parseLong(options.get("rows"));
+        if (baseUrl.isEmpty()) {
+            storage = Files.createTempDirectory("picporter-loadtest-");
+            context = start(options.get("strategy"), storage, rows, appArgs);
+            baseUrl = "http://127.0.0.1:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        } else if (rows > 0) {
+            throw new IllegalArgumentException("rows 只能用于内置应用");
+        }
+        try {
+            LoadTest loadTest = new LoadTest(options, baseUrl);
+            loadTest.client.awaitReady(Duration.ofSeconds(30));
+            if (rows > 0) {
+                awaitFilter(context.getBean(IIdentifierFilterService.class));
+            }
+            loadTest.run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (storage != null) {
+                FileUtil.del(storage.toFile());
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 启动应用：H2内存数据库，minio策略使用进程内S3替身，local策略写入临时目录
+     * @param rows 预置的file表记录数，在布隆过滤器预热之前写入
+     */
+    private static ConfigurableApplicationContext start(String strategy, Path storage, long rows, Map<String, String> overrides) {
+        Map<String, String> props = new LinkedHashMap<>();
+        props.put("server.port", "0");
+        props.put("spring.datasource.url", "jdbc:h2:mem:picporter;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        props.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        props.put("spring.datasource.username", "sa");
+        props.put("spring.datasource.password", "");
+        props.put("spring.sql.init.mode", "always");
+        props.put("spring.sql.init.schema-locations", "classpath:loadtest/schema-h2.sql");
+        props.put("spring.servlet.multipart.max-file-size", "256MB");
+        props.put("spring.servlet.multipart.max-request-size", "256MB");
+        props.put("upload.strategy", strategy);
+        props.put("upload.minio.url", "http://127.0.0.1:9000");
+        props.put("upload.minio.access-key", "loadtest");
+        props.put("upload.minio.secret-key", "loadtest");
+        props.put("upload.minio.bucket-name", "loadtest");
+        props.put("upload.local.path", storage.toString());
+        props.put("logging.level.root", "WARN");
+        if (rows > DEFAULT_EXPECTED_INSERTIONS) {
+            // 与线上按文件数配置过滤器容量一致，避免误判率随表规模上升
+            props.put("upload.bloom-filter.expected-insertions", String.valueOf(rows));
+        }
+        props.putAll(overrides);
+        InMemoryObjectStore store = new InMemoryObjectStore();
+        return new SpringApplicationBuilder(Application.class)
+                .listeners((ApplicationListener<ApplicationStartedEvent>) event -> seedRows(event.getApplicationContext(), rows))
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        // 替换S3客户端，不访问真实存储服务
+                        return "amazonS3Client".equals(beanName) ? store : bean;
+                    }
+                }))
+                .run(props.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+    }
+
+    /**
+     * 按批写入 rows 条文件记录，标识为 {@link #rowIdentifier}，主键取序号，远小于应用写入时由雪花算法生成的主键。
+     * ApplicationStartedEvent 早于布隆过滤器预热所监听的 ApplicationReadyEvent，预热会扫描到这些记录
+     */
+    private static void seedRows(ApplicationContext context, long rows) {
+        if (rows <= 0) {
+            return;
+        }
+        System.out.printf("写入 %d 条文件记录...%n", rows);
+        long start = System.nanoTime();
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long i = 1; i <= rows; i++) {
+            batch.add(new Object[]{i, "rows/" + i + ".bin", rowIdentifier(i)});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows) {
+                jdbc.batchUpdate("INSERT INTO file (id, file_name, file_size, object_key, identifier) "
+                        + "VALUES (?, 'row.bin', 1024, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        System.out.printf("写入完成，耗时 %.1fs%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * 等待布隆过滤器扫描完预置记录，否则秒传未命中的请求在预热期间全部落到数据库
+     */
+    private static void awaitFilter(IIdentifierFilterService filterService) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!filterService.isReady()) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        System.out.printf("布隆过滤器预热完成，耗时 %.1fs，内存 %dKB%n",
+                (System.nanoTime() - start) / 1e9, filterService.getMemoryBytes() / KB);
+    }
+
+    private static String rowIdentifier(long index) {
+        return SecureUtil.md5("row-" + index);
+    }
+
+    void run() throws Exception {
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        long warmup = Long.parseLong(options.get("warmup"));
+        long duration = Long.parseLong(options.get("duration"));
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            int seed = Integer.parseInt(options.get("seed"));
+            System.out.printf("预置 %d 个文件...%n", seed);
+            drive(workers, concurrency, () -> identifierCount.get() >= seed, "tiny");
+            System.out.printf("预热 %ds，并发 %d，比例 %s%n", warmup, concurrency, options.get("mix"));
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+            drive(workers, concurrency, () -> System.nanoTime() >= warmupEnd, null);
+            stats = new ConcurrentHashMap<>();
+            System.out.printf("压测 %ds...%n", duration);
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(duration);
+            drive(workers, concurrency, () -> System.nanoTime() >= end, null);
+            report((System.nanoTime() - start) / 1e9);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 所有工作线程持续发起请求直到满足停止条件
+     * @param op 固定执行的操作，为空时按比例随机选择
+     */
+    private void drive(ExecutorService workers, int concurrency, StopCondition stop, String op) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> {
+                Worker worker = new Worker();
+                while (!stop.reached()) {
+                    worker.execute(op != null ? op : pick());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private String pick() {
+        int r = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+        for (int i = 0; i < weights.length; i++) {
+            if (r < weights[i]) {
+                return ops[i];
+            }
+        }
+        return ops[ops.length - 1];
+    }
+
+    private EndpointStats stats(String name) {
+        return stats.computeIfAbsent(name, EndpointStats::new);
+    }
+
+    private void report(double seconds) throws IOException {
+        JSONArray results = new JSONArray();
+        System.out.printf("%n%-14s %10s %8s %10s %9s %10s %10s %10s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "MB/s", "p50(ms)", "p99(ms)", "p99.9(ms)");
+        stats.values().stream()
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .forEach(s -> {
+                    double rps = s.getCount() / seconds;
+                    double mbps = s.getBytes() / MB / seconds;
+                    System.out.printf("%-14s %10d %8d %10.1f %9.2f %10.2f %10.2f %10.2f%n",
+                            s.getName(), s.getCount(), s.getErrors(), rps, mbps,
+                            s.percentile(0.5) / 1000.0, s.percentile(0.99) / 1000.0, s.percentile(0.999) / 1000.0);
+                    results.add(new JSONObject()
+                            .set("endpoint", s.getName())
+                            .set("requests", s.getCount())
+                            .set("errors", s.getErrors())
+                            .set("requestsPerSecond", rps)
+                            .set("megabytesPerSecond", mbps)
+                            .set("p50Millis", s.percentile(0.5) / 1000.0)
+                            .set("p99Millis", s.percentile(0.99) / 1000.0)
+                            .set("p999Millis", s.percentile(0.999) / 1000.0));
+                });
+        JSONObject output = new JSONObject()
+                .set("options", options)
+                .set("seconds", seconds)
+                .set("results", results);
+        Path file = Path.of(options.get("output"));
+        FileUtil.mkParentDirs(file.toFile());
+        Files.writeString(file, JSONUtil.toJsonPrettyStr(output), StandardCharsets.UTF_8);
+        System.out.printf("%n结果已写入 %s%n", options.get("output"));
+    }
+
+    @FunctionalInterface
+    private interface StopCondition {
+        boolean reached();
+    }
+
+    /**
+     * 工作线程，持有可复用的上传数据缓冲，每次修改开头的序号保证内容唯一
+     */
+    private class Worker {
+
+        private final byte[] tiny = random(tinySize);
+
+        private final byte[] file = random(partSize * parts);
+
+        void execute(String op) {
+            switch (op) {
+                case "second" -> second();
+                case "tiny" -> tiny();
+                case "chunked" -> chunked();
+                case "list" -> timed("list", 0, () -> client.list(pageSize));
+                default -> throw new IllegalArgumentException("未知的操作: " + op);
+            }
+        }
+
+        private void second() {
+            long count = identifierCount.get();
+            boolean hit = (rows > 0 || count > 0) && ThreadLocalRandom.current().nextDouble() < secondHitRatio;
+            String identifier;
+            if (!hit) {
+                identifier = SecureUtil.md5(String.valueOf(ThreadLocalRandom.current().nextLong()));
+            } else if (rows > 0) {
+                // 在整张表中均匀选择，查询命中索引的不同位置
+                identifier = rowIdentifier(ThreadLocalRandom.current().nextLong(rows) + 1);
+            } else {
+                identifier = identifiers.get((int) (ThreadLocalRandom.current().nextLong(Math.min(count, identifiers.length()))));
+            }
+            long start = System.nanoTime();
+            boolean success = timed("second", 0, () -> client.secondUpload(identifier, "second.bin"));
+            stats(hit ? "second(hit)" : "second(miss)").record(System.nanoTime() - start, success, 0);
+        }
+
+        private void tiny() {
+            String identifier = unique(tiny);
+            if (timed("tiny", tiny.length, () -> client.tiny("tiny.bin", identifier, tiny, tiny.length))) {
+                remember(identifier);
+            }
+        }
+
+        private void chunked() {
+            String identifier = unique(file);
+            long start = System.nanoTime();
+            boolean success = timed("initShardTask", 0,
+                    () -> client.initShardTask("chunked.bin", identifier, file.length, partSize));
+            for (int i = 0; success && i < parts; i++) {
+                int partNumber = i + 1;
+                success = timed("uploadPart", partSize,
+                        () -> client.uploadPart(identifier, partNumber, file, (partNumber - 1) * partSize, partSize));
+            }
+            success = success && timed("merge", 0, () -> client.merge(identifier));
+            stats("chunked(flow)").record(System.nanoTime() - start, success, success ? file.length : 0);
+            if (success) {
+                remember(identifier);
+            }
+        }
+
+        private boolean timed(String endpoint, long bytes, Call call) {
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                success = call.call();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (Exception e) {
+                success = false;
+            }
+            stats(endpoint).record(System.nanoTime() - start, success, bytes);
+            return success;
+        }
+
+        /**
+         * 写入全局序号使内容唯一，返回内容MD5
+         */
+        private String unique(byte[] data) {
+            long n = sequence.incrementAndGet();
+            for (int i = 0; i < Long.BYTES; i++) {
+                data[i] = (byte) (n >>> (i * 8));
+            }
+            return SecureUtil.md5().digestHex(data);
+        }
+
+        private void remember(String identifier) {
+            long index = identifierCount.getAndIncrement();
+            identifiers.set((int) (index % identifiers.length()), identifier);
+        }
+
+        private byte[] random(int size) {
+            byte[] data = new byte[Math.max(size, Long.BYTES)];
+            ThreadLocalRandom.current().nextBytes(data);
+            return data;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        boolean call() throws Exception;
+    }
+}
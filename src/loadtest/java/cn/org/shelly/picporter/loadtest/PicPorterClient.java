@@ -0,0 +1,159 @@
+package cn.org.shelly.picporter.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 压测用的上传接口客户端
+ * <p>
+ * 直接按前端的请求格式构造表单与分片请求，响应只判断HTTP状态与业务码，不做完整解析
+ * </p>
+ * @author shelly
+ */
+public class PicPorterClient {
+
+    private static final String SUCCESS_CODE = "\"code\":200";
+
+    private final HttpClient httpClient;
+
+    private final String baseUrl;
+
+    public PicPorterClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public boolean secondUpload(String identifier, String fileName) throws IOException, InterruptedException {
+        String form = "identifier=" + encode(identifier) + "&fileName=" + encode(fileName);
+        return send(HttpRequest.newBuilder(uri("/upload/second"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+    }
+
+    public boolean tiny(String fileName, String identifier, byte[] data, int length) throws IOException, InterruptedException {
+        Multipart multipart = new Multipart()
+                .field("fileName", fileName)
+                .field("identifier", identifier)
+                .field("size", String.valueOf(length))
+                .file("file", fileName, data, 0, length);
+        return send(multipart.request(uri("/upload/tiny")));
+    }
+
+    public boolean initShardTask(String fileName, String identifier, long totalSize, long chunkSize) throws IOException, InterruptedException {
+        String json = String.format("{\"fileName\":\"%s\",\"identifier\":\"%s\",\"totalSize\":%d,\"chunkSize\":%d}",
+                fileName, identifier, totalSize, chunkSize);
+        return send(HttpRequest.newBuilder(uri("/upload/initShardTask"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    public boolean uploadPart(String identifier, int partNumber, byte[] data, int offset, int length) throws IOException, InterruptedException {
+        Multipart multipart = new Multipart().file("file", "blob", data, offset, length);
+        return send(multipart.request(uri("/upload/uploadPart/" + identifier + "/" + partNumber)));
+    }
+
+    public boolean merge(String identifier) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri("/upload/merge/" + identifier))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    public boolean list(int pageSize) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri("/upload/list?pageSize=" + pageSize)).GET());
+    }
+
+    /**
+     * 等待服务可用
+     */
+    public void awaitReady(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (send(HttpRequest.newBuilder(uri("/upload/test")).GET())) {
+                    return;
+                }
+            } catch (IOException ignored) {
+                // 服务尚未启动
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("服务未就绪: " + baseUrl);
+    }
+
+    private boolean send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(builder.timeout(Duration.ofSeconds(60)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() == 200 && response.body().contains(SUCCESS_CODE);
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * multipart/form-data 请求体
+     */
+    private static class Multipart {
+
+        private final String boundary = "----picporter" + UUID.randomUUID().toString().replace("-", "");
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        Multipart field(String name, String value) {
+            head(name, null, null);
+            write(value.getBytes(StandardCharsets.UTF_8), 0, -1);
+            write("\r\n");
+            return this;
+        }
+
+        Multipart file(String name, String fileName, byte[] data, int offset, int length) {
+            head(name, fileName, "application/octet-stream");
+            write(data, offset, length);
+            write("\r\n");
+            return this;
+        }
+
+        HttpRequest.Builder request(URI uri) {
+            write("--" + boundary + "--\r\n");
+            return HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        }
+
+        private void head(String name, String fileName, String contentType) {
+            StringBuilder sb = new StringBuilder("--").append(boundary)
+                    .append("\r\nContent-Disposition: form-data; name=\"").append(name).append('"');
+            if (fileName != null) {
+                sb.append("; filename=\"").append(fileName).append('"');
+            }
+            sb.append("\r\n");
+            if (contentType != null) {
+                sb.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            sb.append("\r\n");
+            write(sb.toString());
+        }
+
+        private void write(String s) {
+            write(s.getBytes(StandardCharsets.UTF_8), 0, -1);
+        }
+
+        private void write(byte[] data, int offset, int length) {
+            body.write(data, offset, length < 0 ? data.length : length);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+-- 压测用H2表结构（MySQL兼容模式），与 docs/mysql/picporter.sql 保持一致
+CREATE TABLE chunk (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    identifier   VARCHAR(500) NOT NULL,
+    upload_id    VARCHAR(255),
+    file_name    VARCHAR(500) NOT NULL,
+    bucket_name  VARCHAR(255) NOT NULL,
+    object_key   VARCHAR(500) NOT NULL,
+    total_size   BIGINT       NOT NULL,
+    chunk_size   BIGINT       NOT NULL,
+    chunk_num    INT          NOT NULL,
+    storage      VARCHAR(32),
+    gmt_create   DATETIME DEFAULT CURRENT_TIMESTAMP,
+    gmt_modified DATETIME DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_file_identifier UNIQUE (identifier)
+);
+
+CREATE TABLE chunk_part (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    chunk_id    BIGINT       NOT NULL,
+    part_number INT          NOT NULL,
+    etag        VARCHAR(255) NOT NULL,
+    size        BIGINT       NOT NULL,
+    gmt_create  DATETIME DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_chunk_part UNIQUE (chunk_id, part_number)
+);
+
+CREATE TABLE file (
+    id           BIGINT NOT NULL PRIMARY KEY,
+    file_name    VARCHAR(255),
+    file_suffix  VARCHAR(255),
+    file_size    BIGINT,
+    object_key   VARCHAR(500),
+    identifier   VARCHAR(255),
+    derivatives  VARCHAR(512),
+    storage      VARCHAR(32),
+    create_by    VARCHAR(255),
+    update_by    VARCHAR(255),
+    gmt_create   DATETIME DEFAULT CURRENT_TIMESTAMP,
+    gmt_modified DATETIME DEFAULT CURRENT_TIMESTAMP,
+    gmt_access   DATETIME DEFAULT CURRENT_TIMESTAMP,
+    is_deleted   TINYINT DEFAULT 0
+);
+CREATE INDEX idx_file_identifier ON file (identifier);
+CREATE INDEX idx_file_gmt_create ON file (gmt_create);
+CREATE INDEX idx_file_name ON file (file_name);
+CREATE INDEX idx_file_storage_access ON file (storage, gmt_access);
@@ -1,8 +1,10 @@
 package cn.org.shelly.picporter;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
     public static void main(String[] args) {
         org.springframework.boot.SpringApplication.run(Application.class, args);
@@ -11,7 +11,7 @@ import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import jakarta.annotation.Resource;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -21,7 +21,7 @@ import org.springframework.context.annotation.Configuration;
  * @author shelly 2025/5/10
  */
 @Configuration
-@ConditionalOnProperty(prefix = "upload", name = "strategy", havingValue = "minio")
+@ConditionalOnExpression("'${upload.strategy}' == 'minio' or ${upload.minio.enabled:false}")
 public class AmazonS3Config {
 
     @Resource
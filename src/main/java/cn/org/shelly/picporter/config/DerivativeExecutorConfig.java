@@ -0,0 +1,40 @@
+package cn.org.shelly.picporter.config;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.org.shelly.picporter.config.properties.DerivativeProperties;
+import jakarta.annotation.Resource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 功能：衍生图生成线程池配置
+ * 图片编解码为CPU密集任务，使用小规模有界线程池，队列满时拒绝，由提交方丢弃任务，不阻塞上传请求
+ * @author shelly
+ */
+@Configuration
+public class DerivativeExecutorConfig {
+
+    @Resource
+    private DerivativeProperties derivativeProperties;
+
+    /**
+     * 创建衍生图生成线程池
+     *
+     * @return ExecutorService 衍生图生成线程池
+     */
+    @Bean(name = "derivativeExecutor", destroyMethod = "shutdown")
+    public ExecutorService derivativeExecutor() {
+        return new ThreadPoolExecutor(
+                derivativeProperties.getPoolSize(),
+                derivativeProperties.getPoolSize(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(derivativeProperties.getQueueCapacity()),
+                new NamedThreadFactory("derivative-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
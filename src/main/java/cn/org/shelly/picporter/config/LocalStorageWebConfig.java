@@ -0,0 +1,30 @@
+package cn.org.shelly.picporter.config;
+
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import jakarta.annotation.Resource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Paths;
+
+/**
+ * 功能：本地存储文件访问配置
+ * 将本地存储目录映射为静态资源，支持Range请求
+ * @author shelly
+ */
+@Configuration
+@ConditionalOnExpression("'${upload.strategy}' == 'local' or ${upload.local.enabled:false}")
+public class LocalStorageWebConfig implements WebMvcConfigurer {
+
+    @Resource
+    private LocalProperties localProperties;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String location = Paths.get(localProperties.getPath()).toAbsolutePath().normalize().toUri().toString();
+        registry.addResourceHandler(localProperties.getMapping())
+                .addResourceLocations(location.endsWith("/") ? location : location + "/");
+    }
+}
@@ -0,0 +1,114 @@
+package cn.org.shelly.picporter.config;
+
+import cn.org.shelly.picporter.service.IChunkService;
+import cn.org.shelly.picporter.service.IFileTieringService;
+import cn.org.shelly.picporter.service.IIdentifierFilterService;
+import cn.org.shelly.picporter.service.IImageTransformService;
+import cn.org.shelly.picporter.service.IPresignedUrlService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存与过滤器监控指标
+ * <p>
+ * 各服务自行维护计数，这里只在抓取时读取，不增加业务路径上的开销
+ * </p>
+ * @author shelly
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 分片任务缓存命中
+     */
+    @Bean
+    public MeterBinder chunkCacheMetrics(IChunkService chunkService) {
+        return registry -> {
+            FunctionCounter.builder("picporter.chunk.cache", chunkService, IChunkService::getCacheHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("picporter.chunk.cache", chunkService, IChunkService::getCacheMissCount)
+                    .tag("result", "miss").register(registry);
+        };
+    }
+
+    /**
+     * 秒传布隆过滤器
+     */
+    @Bean
+    public MeterBinder identifierFilterMetrics(IIdentifierFilterService identifierFilterService) {
+        return registry -> {
+            FunctionCounter.builder("picporter.bloom.filter", identifierFilterService, IIdentifierFilterService::getFilteredCount)
+                    .description("判定不存在而跳过数据库查询的次数")
+                    .tag("result", "filtered").register(registry);
+            FunctionCounter.builder("picporter.bloom.filter", identifierFilterService, IIdentifierFilterService::getPassedCount)
+                    .tag("result", "passed").register(registry);
+            Gauge.builder("picporter.bloom.filter.fpp", identifierFilterService, IIdentifierFilterService::getExpectedFpp)
+                    .register(registry);
+            Gauge.builder("picporter.bloom.filter.memory", identifierFilterService, IIdentifierFilterService::getMemoryBytes)
+                    .baseUnit("bytes").register(registry);
+            Gauge.builder("picporter.bloom.filter.ready", identifierFilterService, s -> s.isReady() ? 1 : 0)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 预签名地址缓存
+     */
+    @Bean
+    public MeterBinder presignedUrlMetrics(IPresignedUrlService presignedUrlService) {
+        return registry -> {
+            FunctionCounter.builder("picporter.presign.cache", presignedUrlService, IPresignedUrlService::getCacheHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("picporter.presign.cache", presignedUrlService, IPresignedUrlService::getCacheMissCount)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("picporter.presign.sign", presignedUrlService, IPresignedUrlService::getSignCount)
+                    .register(registry);
+            FunctionCounter.builder("picporter.presign.sign.time", presignedUrlService,
+                            s -> (double) s.getSignTotalNanos() / TimeUnit.SECONDS.toNanos(1))
+                    .baseUnit("seconds").register(registry);
+        };
+    }
+
+    /**
+     * 图片实时变换缓存
+     */
+    @Bean
+    public MeterBinder imageTransformMetrics(IImageTransformService imageTransformService) {
+        return registry -> {
+            FunctionCounter.builder("picporter.transform.requests", imageTransformService, IImageTransformService::getHeapHitCount)
+                    .tag("result", "heap").register(registry);
+            FunctionCounter.builder("picporter.transform.requests", imageTransformService, IImageTransformService::getDiskHitCount)
+                    .tag("result", "disk").register(registry);
+            FunctionCounter.builder("picporter.transform.requests", imageTransformService, IImageTransformService::getTransformCount)
+                    .tag("result", "transform").register(registry);
+            FunctionCounter.builder("picporter.transform.requests", imageTransformService, IImageTransformService::getCoalescedCount)
+                    .tag("result", "coalesced").register(registry);
+            Gauge.builder("picporter.transform.cache.size", imageTransformService, IImageTransformService::getHeapBytes)
+                    .tag("tier", "heap").baseUnit("bytes").register(registry);
+            Gauge.builder("picporter.transform.cache.size", imageTransformService, IImageTransformService::getDiskBytes)
+                    .tag("tier", "disk").baseUnit("bytes").register(registry);
+        };
+    }
+
+    /**
+     * 冷热分层迁移
+     */
+    @Bean
+    public MeterBinder tieringMetrics(IFileTieringService fileTieringService) {
+        return registry -> {
+            FunctionCounter.builder("picporter.tiering.moved", fileTieringService, IFileTieringService::getMovedCount)
+                    .register(registry);
+            FunctionCounter.builder("picporter.tiering.moved.bytes", fileTieringService, IFileTieringService::getMovedBytes)
+                    .baseUnit("bytes").register(registry);
+            FunctionCounter.builder("picporter.tiering.failed", fileTieringService, IFileTieringService::getFailedCount)
+                    .register(registry);
+            Gauge.builder("picporter.tiering.access.pending", fileTieringService, IFileTieringService::getPendingAccessCount)
+                    .description("尚未写回数据库的读取记录数").register(registry);
+        };
+    }
+}
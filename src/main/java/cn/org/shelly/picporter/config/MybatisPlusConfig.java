@@ -0,0 +1,27 @@
+package cn.org.shelly.picporter.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 功能：MybatisPlus配置
+ * @author shelly
+ */
+@Configuration
+public class MybatisPlusConfig {
+
+    /**
+     * 注册分页插件，分页查询在数据库侧完成
+     *
+     * @return MybatisPlusInterceptor 拦截器
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        return interceptor;
+    }
+}
@@ -0,0 +1,45 @@
+package cn.org.shelly.picporter.config;
+
+import cn.org.shelly.picporter.config.properties.OssProperties;
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import jakarta.annotation.Resource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 功能：阿里云OSS客户端配置
+ * 全局复用同一个OSS客户端及其连接池，容器关闭时释放
+ * @author shelly
+ */
+@Configuration
+public class OssConfig {
+
+    @Resource
+    private OssProperties ossProperties;
+
+    /**
+     * 创建并配置OSS客户端
+     *
+     * @return OSS 实例，用于与阿里云OSS服务进行交互
+     */
+    @Bean(name = "ossClient", destroyMethod = "shutdown")
+    public OSS getClient() {
+        ClientBuilderConfiguration config = new ClientBuilderConfiguration();
+        // 连接池大小
+        config.setMaxConnections(ossProperties.getMaxConnections());
+        // 建立连接超时时间
+        config.setConnectionTimeout(ossProperties.getConnectionTimeout());
+        // Socket读写超时时间
+        config.setSocketTimeout(ossProperties.getSocketTimeout());
+        // 开启空闲连接回收，并保持长连接
+        config.setUseReaper(true);
+        config.setIdleConnectionTime(ossProperties.getIdleConnectionTime());
+        config.setConnectionTTL(ossProperties.getConnectionTtl());
+        // 失败重试次数
+        config.setMaxErrorRetry(ossProperties.getMaxErrorRetry());
+        return new OSSClientBuilder().build(ossProperties.getEndpoint(), ossProperties.getAccessKeyId(),
+                ossProperties.getAccessKeySecret(), config);
+    }
+}
@@ -0,0 +1,72 @@
+package cn.org.shelly.picporter.config;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.org.shelly.picporter.config.properties.PartUploadProperties;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 功能：分片上传线程池配置
+ * JDK21及以上优先使用虚拟线程，否则使用有界的平台线程池
+ * @author shelly
+ */
+@Slf4j
+@Configuration
+public class PartUploadExecutorConfig {
+
+    @Resource
+    private PartUploadProperties partUploadProperties;
+
+    /**
+     * 创建分片上传线程池，供文章图片与批量上传使用
+     *
+     * @return ExecutorService 分片上传线程池
+     */
+    @Bean(name = "partUploadExecutor", destroyMethod = "shutdown")
+    public ExecutorService partUploadExecutor() {
+        // 队列满时由提交线程执行，形成背压
+        return executor("part-upload-", partUploadProperties.getPoolSize(), partUploadProperties.getQueueCapacity(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 创建服务端代理分片上传线程池
+     * <p>
+     * 代理上传的提交线程是持有整个请求流的请求线程，队列满时不能由其执行上传，直接拒绝，该次上传失败后可重试
+     * </p>
+     *
+     * @return ExecutorService 代理分片上传线程池
+     */
+    @Bean(name = "proxyUploadExecutor", destroyMethod = "shutdown")
+    public ExecutorService proxyUploadExecutor() {
+        return executor("proxy-upload-", partUploadProperties.getProxyPoolSize(), partUploadProperties.getProxyQueueCapacity(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ExecutorService executor(String prefix, int poolSize, int queueCapacity, RejectedExecutionHandler handler) {
+        if (partUploadProperties.isVirtualThreads() && Runtime.version().feature() >= 21) {
+            try {
+                // 以反射方式调用，保证在JDK17下仍可编译运行
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("虚拟线程不可用，使用平台线程池: {}", e.getMessage());
+            }
+        }
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new NamedThreadFactory(prefix, true),
+                handler);
+    }
+}
@@ -0,0 +1,75 @@
+package cn.org.shelly.picporter.config.properties;
+
+import cn.org.shelly.picporter.utils.ImageDerivatives;
+import lombok.Data;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图片衍生图配置
+ * @author shelly
+ */
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "upload.derivative")
+public class DerivativeProperties implements InitializingBean {
+
+    /**
+     * 是否在上传后生成衍生图
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缩略图宽度列表（像素），按比例缩放，不放大
+     */
+    private List<Integer> widths = new ArrayList<>(List.of(160, 640));
+
+    /**
+     * 是否生成去除元数据的原尺寸重编码图
+     */
+    private boolean reencodeOriginal = false;
+
+    /**
+     * 输出格式，需有可用的 ImageIO 编码器（JDK 自带 jpg、png、gif、bmp），否则启动失败；
+     * 为jpg时含透明通道的图片输出png
+     */
+    private String format = "jpg";
+
+    /**
+     * 有损编码质量，0~1
+     */
+    private float quality = 0.82f;
+
+    /**
+     * 参与生成的原图最大大小（byte）
+     */
+    private long maxSourceSize = 20 * 1024 * 1024;
+
+    /**
+     * 参与生成的原图最大像素数，防止解码超大图片耗尽内存
+     */
+    private long maxPixels = 40_000_000L;
+
+    /**
+     * 衍生图线程池大小
+     */
+    private int poolSize = 2;
+
+    /**
+     * 衍生图线程池队列容量，队列满时丢弃任务
+     */
+    private int queueCapacity = 256;
+
+    @Override
+    public void afterPropertiesSet() {
+        // 衍生图与实时变换均以该格式为默认输出，编码器缺失时每次生成都会失败
+        if (!ImageDerivatives.isWritable(format)) {
+            throw new IllegalStateException("upload.derivative.format 不可用: " + format + "，运行环境没有对应的 ImageIO 编码器");
+        }
+    }
+}
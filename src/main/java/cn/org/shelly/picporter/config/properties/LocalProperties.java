@@ -0,0 +1,42 @@
+package cn.org.shelly.picporter.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本地存储配置
+ * @author shelly
+ */
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "upload.local")
+public class LocalProperties {
+
+    /**
+     * 非当前存储时是否仍加载
+     */
+    private boolean enabled;
+
+    /**
+     * 文件存储根目录
+     */
+    private String path = "./data/picporter";
+
+    /**
+     * 分片上传临时目录，不能位于存储根目录之内，且须与其位于同一文件系统以便合并时原子重命名；
+     * 为空时使用存储根目录同级的“根目录名.parts”目录
+     */
+    private String partPath;
+
+    /**
+     * 文件访问地址前缀
+     */
+    private String url = "http://localhost:8080/local";
+
+    /**
+     * 文件访问路径映射
+     */
+    private String mapping = "/local/**";
+}
@@ -37,4 +37,34 @@ public class OssProperties {
      * bucket名称
      */
     private String bucketName;
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxConnections = 128;
+
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    private int connectionTimeout = 5000;
+
+    /**
+     * Socket读写超时时间（毫秒）
+     */
+    private int socketTimeout = 50000;
+
+    /**
+     * 空闲连接回收时间（毫秒）
+     */
+    private long idleConnectionTime = 60000;
+
+    /**
+     * 连接最大存活时间（毫秒），-1表示一直保持长连接
+     */
+    private long connectionTtl = -1;
+
+    /**
+     * 失败重试次数
+     */
+    private int maxErrorRetry = 3;
 }
\ No newline at end of file
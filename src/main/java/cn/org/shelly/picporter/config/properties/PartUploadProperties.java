@@ -0,0 +1,51 @@
+package cn.org.shelly.picporter.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 服务端代理分片上传配置
+ * @author shelly
+ */
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "upload.part")
+public class PartUploadProperties {
+
+    /**
+     * 服务端拆分时每个分片大小（byte），S3协议要求除最后一片外不小于5MB
+     */
+    private long partSize = 8 * 1024 * 1024;
+
+    /**
+     * 单个文件同时上传的最大分片数，同时也是该文件占用的分片缓冲数量
+     */
+    private int concurrency = 4;
+
+    /**
+     * 分片上传线程池大小
+     */
+    private int poolSize = 16;
+
+    /**
+     * 分片上传线程池队列容量，队列满时由提交线程自行执行以形成背压
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 服务端代理分片上传专用线程池大小，与文章图片、批量上传的线程池隔离
+     */
+    private int proxyPoolSize = 8;
+
+    /**
+     * 代理分片上传线程池队列容量，队列满时拒绝新的分片并使该次上传失败，不占用请求线程上传
+     */
+    private int proxyQueueCapacity = 32;
+
+    /**
+     * 运行在JDK21及以上时是否使用虚拟线程
+     */
+    private boolean virtualThreads = true;
+}
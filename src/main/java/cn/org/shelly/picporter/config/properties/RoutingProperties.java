@@ -0,0 +1,52 @@
+package cn.org.shelly.picporter.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 上传路由配置
+ * <p>
+ * 新上传的文件按规则顺序匹配大小与扩展名，命中第一条规则的存储；均未命中时使用当前存储。
+ * 规则中的存储需已加载（当前存储或配置了 upload.xxx.enabled=true）
+ * </p>
+ * @author shelly
+ */
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "upload.routing")
+public class RoutingProperties {
+
+    /**
+     * 路由规则
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 目标存储（local/minio/oss）
+         */
+        private String storage;
+
+        /**
+         * 文件大小下限（byte，包含），为空不限制
+         */
+        private Long minSize;
+
+        /**
+         * 文件大小上限（byte，不包含），为空不限制
+         */
+        private Long maxSize;
+
+        /**
+         * 扩展名列表，不区分大小写，为空不限制
+         */
+        private List<String> types = new ArrayList<>();
+    }
+}
@@ -0,0 +1,62 @@
+package cn.org.shelly.picporter.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 冷热分层配置
+ * @author shelly
+ */
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "upload.tiering")
+public class TieringProperties {
+
+    /**
+     * 是否启用，启用后记录文件读取时间并在后台迁移冷数据
+     */
+    private boolean enabled = false;
+
+    /**
+     * 经服务读取文件的地址，即 /upload/file 接口的完整地址，如 https://example.com/upload/file。
+     * 启用后返回给客户端的文件地址均为该地址加文件标识，文件迁移后地址不变；启用时必填
+     */
+    private String fileUrl;
+
+    /**
+     * 热存储（local/minio/oss）
+     */
+    private String hot = "minio";
+
+    /**
+     * 冷存储（local/minio/oss）
+     */
+    private String cold = "oss";
+
+    /**
+     * 超过多少天未读取的文件迁移到冷存储
+     */
+    private int coldAfterDays = 30;
+
+    /**
+     * 迁移任务执行间隔（毫秒）
+     */
+    private long interval = 3600000;
+
+    /**
+     * 每次最多迁移的文件数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 迁移限速（byte/s）
+     */
+    private long bytesPerSecond = 10 * 1024 * 1024;
+
+    /**
+     * 读取时间写回数据库的间隔（毫秒），期间的读取只记录在内存中
+     */
+    private long accessFlushInterval = 60000;
+}
@@ -0,0 +1,51 @@
+package cn.org.shelly.picporter.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片实时变换配置
+ * @author shelly
+ */
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "upload.transform")
+public class TransformProperties {
+
+    /**
+     * 允许的最大输出宽高（像素）
+     */
+    private int maxDimension = 4096;
+
+    /**
+     * 同时进行解码与缩放的最大任务数
+     */
+    private int maxConcurrent = 4;
+
+    /**
+     * 堆内缓存容量（byte）
+     */
+    private long heapCapacity = 64 * 1024 * 1024;
+
+    /**
+     * 堆内缓存单个结果的最大大小（byte），超过时只写入磁盘缓存
+     */
+    private long heapMaxEntrySize = 2 * 1024 * 1024;
+
+    /**
+     * 磁盘缓存目录
+     */
+    private String diskPath = "./data/transform-cache";
+
+    /**
+     * 磁盘缓存容量（byte），超过时按最近访问时间清理至80%
+     */
+    private long diskCapacity = 1024L * 1024 * 1024;
+
+    /**
+     * 原图文件名缓存条数，用于确定变换规格与ETag
+     */
+    private int fileCacheCapacity = 10000;
+}
@@ -5,20 +5,39 @@ import cn.org.shelly.picporter.exception.CustomException;
 import cn.org.shelly.picporter.model.req.ArticleReq;
 import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
 import cn.org.shelly.picporter.model.req.FileUploadReq;
+import cn.org.shelly.picporter.model.req.ImageTransformReq;
+import cn.org.shelly.picporter.model.resp.ArticleResp;
+import cn.org.shelly.picporter.model.resp.BatchUploadResp;
 import cn.org.shelly.picporter.model.resp.FileChunkResp;
 import cn.org.shelly.picporter.model.resp.FileInfoResp;
+import cn.org.shelly.picporter.model.resp.PageResp;
+import cn.org.shelly.picporter.model.resp.TransformedImage;
+import cn.org.shelly.picporter.service.IImageTransformService;
+import cn.org.shelly.picporter.strategy.StoredObject;
 import cn.org.shelly.picporter.strategy.context.UploadStrategyContext;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 文件上传控制层
@@ -32,8 +51,18 @@ import java.util.List;
 @CrossOrigin("*")
 public class FileUploadController {
 
+    /**
+     * Tomcat sendfile 相关请求属性
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final UploadStrategyContext uploadStrategyContext;
 
+    private final IImageTransformService imageTransformService;
+
     /**
      * 小文件上传
      * <p>
@@ -90,6 +119,53 @@ public class FileUploadController {
         return Result.success(uploadSuccess);
     }
 
+    /**
+     * 批量秒传判断
+     * <p>
+     * 一次查询返回多个文件MD5是否已存在，适用于批量粘贴图片前的去重判断
+     * </p>
+     *
+     * @param identifiers 文件唯一标识列表
+     * @return 标识到是否已存在的映射
+     */
+    @PostMapping("/second/batch")
+    @Operation(summary = "批量秒传判断")
+    public Result<Map<String, Boolean>> batchSecondUpload(@RequestBody List<String> identifiers) {
+        return Result.success(uploadStrategyContext.batchSecondUpload(identifiers));
+    }
+
+    /**
+     * 批量小文件上传
+     * <p>
+     * 一次请求上传多个小文件，已存在的内容直接复用，其余文件并发上传并批量写入数据库，返回逐项结果
+     * </p>
+     *
+     * @param files       文件列表
+     * @param identifiers 与文件一一对应的MD5，可为空，为空时由服务端计算
+     * @return 与文件顺序一致的逐项结果
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "批量小文件上传")
+    public Result<List<BatchUploadResp>> batchUpload(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "identifiers", required = false) List<String> identifiers
+    ) {
+        if (identifiers != null && identifiers.size() != files.size()) {
+            throw new CustomException("文件与标识数量不一致");
+        }
+        List<FileUploadReq> reqs = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            reqs.add(FileUploadReq.builder()
+                    .fileName(file.getOriginalFilename())
+                    .identifier(identifiers == null ? null : identifiers.get(i))
+                    .size(file.getSize())
+                    .file(file)
+                    .build());
+        }
+        return Result.success(uploadStrategyContext.batchUpload(reqs));
+    }
+
     /**
      * 删除文件
      * <p>
@@ -103,6 +179,7 @@ public class FileUploadController {
     @Operation(summary = "删除文件")
     public Result<Void> delete(@PathVariable("identifier") String identifier) {
         uploadStrategyContext.delete(identifier);
+        imageTransformService.evict(identifier);
         return Result.success();
     }
     /**
@@ -121,13 +198,38 @@ public class FileUploadController {
     public Result<Void> uploadPart(@PathVariable("identifier") String identifier,
                                    @PathVariable("partNumber") int partNumber,
                                    @RequestParam("file") MultipartFile file) {
-        try {
-            boolean success = uploadStrategyContext.uploadPart(identifier, partNumber, file.getBytes());
+        // 直接以流的方式转发分片，避免将整个分片读入堆内存
+        try (InputStream in = file.getInputStream()) {
+            boolean success = uploadStrategyContext.uploadPart(identifier, partNumber, in, file.getSize());
             return Result.isSuccess(success);
         } catch (Exception e) {
             return Result.fail();
         }
     }
+    /**
+     * 服务端代理分片上传
+     * <p>
+     * 请求体为文件原始字节流，服务端拆分为分片后并发上传至存储服务并自动合并，不受multipart大小限制
+     * </p>
+     *
+     * @param fileName   文件名称
+     * @param identifier 文件唯一标识
+     * @param size       文件大小（字节）
+     * @param request    请求
+     * @return 合并后的文件路径
+     */
+    @PostMapping(value = "/proxy", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "服务端代理分片上传")
+    public Result<String> proxyUpload(@RequestParam("fileName") String fileName,
+                                      @RequestParam("identifier") String identifier,
+                                      @RequestParam("size") Long size,
+                                      HttpServletRequest request) {
+        try {
+            return Result.success(uploadStrategyContext.proxyUpload(fileName, identifier, size, request.getInputStream()));
+        } catch (IOException e) {
+            throw new CustomException("上传失败");
+        }
+    }
     /**
      * 合并文件分片
      * <p>
@@ -161,19 +263,22 @@ public class FileUploadController {
     /**
      * 获取文件列表
      * <p>
-     * 根据文件名模糊查询已上传的文件列表，支持分页查询
+     * 根据文件名前缀查询已上传的文件列表，支持页码分页与游标分页。
+     * 传入cursor时按游标向后翻页，不统计总数，适合深度翻页
      * </p>
-     * @param fileName 文件名关键字，用于模糊查询，可为空
+     * @param fileName 文件名前缀，可为空
      * @param pageNum  页码，默认为1
      * @param pageSize 每页记录数，默认为10
-     * @return 文件信息列表，包含文件基本信息和预签名URL
+     * @param cursor   上一页返回的nextCursor，可为空
+     * @return 文件信息分页结果，包含文件基本信息和预签名URL
      */
     @GetMapping("/list")
     @Operation(summary = "获取文件列表")
-    public Result<List<FileInfoResp>> list(@RequestParam(required = false) String fileName,
-                                           @RequestParam(required = false, defaultValue = "1") Integer pageNum,
-                                           @RequestParam(required = false, defaultValue = "10") Integer pageSize) {
-        List<FileInfoResp> fileList = uploadStrategyContext.list(fileName, pageNum, pageSize);
+    public Result<PageResp<FileInfoResp>> list(@RequestParam(required = false) String fileName,
+                                               @RequestParam(required = false, defaultValue = "1") Integer pageNum,
+                                               @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+                                               @RequestParam(required = false) String cursor) {
+        PageResp<FileInfoResp> fileList = uploadStrategyContext.list(fileName, pageNum, pageSize, cursor);
         return Result.success(fileList);
     }
 
@@ -186,12 +291,184 @@ public class FileUploadController {
     public Result<String> test() {
         return Result.success(uploadStrategyContext.test());
     }
+    /**
+     * 文章图片替换
+     * <p>
+     * 上传文章中引用的本地图片并替换为访问链接，单张图片失败不影响其他图片，失败信息随结果返回
+     * </p>
+     *
+     * @param req 文章标题与内容
+     * @return 替换结果，包含替换后的内容、失败图片与各阶段耗时
+     */
     @PostMapping("/article")
     @Operation(summary = "文章图片替换")
-    public Result<String> transfer(@RequestBody ArticleReq req) {
+    public Result<ArticleResp> transfer(@RequestBody ArticleReq req) {
         if(StringUtils.isBlank(req.getTitle()) || StringUtils.isBlank(req.getContent())){
             return Result.fail("标题或内容不能为空");
         }
         return Result.success(uploadStrategyContext.transfer(req));
     }
+
+    /**
+     * 流式文章图片替换
+     * <p>
+     * 请求体为文章原文，响应体为替换后的文章，适用于数MB以上的大文章。
+     * 图片数、成功数与失败数通过响应头 X-Image-Count、X-Image-Uploaded、X-Image-Failed 返回
+     * </p>
+     *
+     * @param title    文章标题
+     * @param request  请求
+     * @param response 响应
+     */
+    @PostMapping(value = "/article/stream", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.TEXT_MARKDOWN_VALUE})
+    @Operation(summary = "流式文章图片替换")
+    public void transferStream(@RequestParam(value = "title", required = false) String title,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        uploadStrategyContext.transfer(title, request.getReader(), response.getWriter(), resp -> {
+            response.setHeader("X-Image-Count", String.valueOf(resp.getImageCount()));
+            response.setHeader("X-Image-Uploaded", String.valueOf(resp.getUploadedCount()));
+            response.setHeader("X-Image-Failed", String.valueOf(resp.getErrors().size()));
+        });
+    }
+
+    /**
+     * 通过服务读取文件
+     * <p>
+     * 从当前存储策略流式读取文件，支持单区间 Range 请求与 ETag/Last-Modified 条件请求。
+     * 本地存储在容器支持时交由 sendfile 零拷贝发送，S3/OSS 将 Range 透传给存储只拉取所需区间。
+     * 启用冷热分层时列表与上传结果返回的即为该地址
+     * </p>
+     *
+     * @param identifier 文件标识
+     * @param derivative 衍生图名称，如 w160.jpg，为空时读取原图
+     * @param request    请求
+     * @param response   响应
+     */
+    @GetMapping("/file/{identifier}")
+    @Operation(summary = "读取文件")
+    public void download(@PathVariable("identifier") String identifier,
+                         @RequestParam(value = "derivative", required = false) String derivative,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        StoredObject object = uploadStrategyContext.getObject(identifier, derivative);
+        // 标识即内容MD5，可直接作为强ETag，衍生图由原图内容与名称确定
+        String etag = "\"" + object.getIdentifier() + (derivative == null ? "" : "-" + derivative) + "\"";
+        long lastModified = object.getLastModified() == null ? -1 : object.getLastModified().getTime();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        long length = object.getSize();
+        long start = 0;
+        long end = length - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && isRangeApplicable(request, etag, lastModified)) {
+            HttpRange httpRange = parseSingleRange(range);
+            if (httpRange != null) {
+                if (length == 0 || !isSatisfiable(httpRange, length)) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                start = httpRange.getRangeStart(length);
+                end = httpRange.getRangeEnd(length);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        response.setContentType(object.getContentType());
+        response.setContentLengthLong(end - start + 1);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(object.getFileName(), StandardCharsets.UTF_8).build().toString());
+        if (length == 0 || HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        // 本地文件交由Tomcat sendfile发送，不经过用户态缓冲
+        if (object.getLocalPath() != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, object.getLocalPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        uploadStrategyContext.writeObject(object, start, end, response.getOutputStream());
+    }
+
+    /**
+     * 图片实时变换
+     * <p>
+     * 按给定的最大宽高等比缩放并重新编码，结果缓存在堆内与本地磁盘，相同参数的并发请求只处理一次
+     * </p>
+     *
+     * @param identifier 文件标识
+     * @param width      最大宽度
+     * @param height     最大高度
+     * @param format     输出格式，如 jpg、png
+     * @param quality    编码质量，1~100，png等无损格式忽略
+     * @param request    请求
+     * @param response   响应
+     */
+    @GetMapping("/image/{identifier}")
+    @Operation(summary = "图片实时变换")
+    public void transformImage(@PathVariable("identifier") String identifier,
+                               @RequestParam(value = "w", required = false) Integer width,
+                               @RequestParam(value = "h", required = false) Integer height,
+                               @RequestParam(value = "fmt", required = false) String format,
+                               @RequestParam(value = "q", required = false) Integer quality,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        // ETag只由标识与变换规格决定，先处理条件请求，命中时不读取原图也不执行变换
+        ImageTransformReq transformReq = imageTransformService.prepare(identifier, width, height, format, quality);
+        if (new ServletWebRequest(request, response).checkNotModified(transformReq.getEtag())) {
+            return;
+        }
+        TransformedImage image = imageTransformService.transform(transformReq);
+        response.setContentType(image.getContentType());
+        response.setContentLength(image.getData().length);
+        if (!HttpMethod.HEAD.matches(request.getMethod())) {
+            response.getOutputStream().write(image.getData());
+        }
+    }
+
+    /**
+     * If-Range 不匹配时忽略 Range，返回完整内容
+     */
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified >= 0 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析Range请求头，仅支持单区间；格式错误或多区间时返回null，按完整内容响应
+     */
+    private static HttpRange parseSingleRange(String range) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSatisfiable(HttpRange range, long length) {
+        try {
+            return range.getRangeStart(length) <= range.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
@@ -3,6 +3,9 @@ package cn.org.shelly.picporter.enums;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 @Getter
 @AllArgsConstructor
 public enum UploadModeEnum {
@@ -33,17 +36,19 @@ public enum UploadModeEnum {
     private final String strategy;
 
     /**
-     * 获取策略
+     * 根据模式获取枚举
      *
      * @param mode 模式
-     * @return 搜索策略
+     * @return 上传模式
+     * @throws IllegalArgumentException 模式不存在
      */
-    public static String getStrategy(String mode) {
+    public static UploadModeEnum of(String mode) {
         for (UploadModeEnum value : UploadModeEnum.values()) {
             if (value.getMode().equals(mode)) {
-                return value.getStrategy();
+                return value;
             }
         }
-        return null;
+        throw new IllegalArgumentException("未知的上传模式: " + mode + "，可选值: "
+                + Arrays.stream(values()).map(UploadModeEnum::getMode).collect(Collectors.joining(", ")));
     }
-}
\ No newline at end of file
+}
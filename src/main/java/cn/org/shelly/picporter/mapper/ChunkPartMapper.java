@@ -0,0 +1,26 @@
+package cn.org.shelly.picporter.mapper;
+
+import cn.org.shelly.picporter.model.po.ChunkPart;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface ChunkPartMapper extends BaseMapper<ChunkPart> {
+
+    /**
+     * 写入分片记录，同一分片重复上传时覆盖ETag与大小
+     * @param part 分片记录
+     * @return 影响行数
+     */
+    int upsert(@Param("part") ChunkPart part);
+
+    /**
+     * 批量写入分片记录
+     * @param parts 分片记录
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("parts") List<ChunkPart> parts);
+}
@@ -3,10 +3,17 @@ package cn.org.shelly.picporter.mapper;
 import cn.org.shelly.picporter.model.po.File;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 @Mapper
 public interface FileMapper extends BaseMapper<File> {
 
+    /**
+     * 判断文件是否存在，仅走identifier索引，不回表读取整行
+     * @param identifier 文件唯一标识
+     * @return 是否存在
+     */
+    boolean existsByIdentifier(@Param("identifier") String identifier);
 }
 
 
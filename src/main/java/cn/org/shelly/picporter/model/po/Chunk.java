@@ -3,8 +3,10 @@ package cn.org.shelly.picporter.model.po;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -13,6 +15,8 @@ import java.util.Date;
 @TableName(value ="chunk")
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class Chunk implements Serializable {
     /**
      * 
@@ -80,6 +84,12 @@ public class Chunk implements Serializable {
     @TableField(value = "gmt_modified")
     private Date gmtModified;
 
+    /**
+     * 创建任务的存储模式，运行时切换存储后未完成的任务仍由原存储处理
+     */
+    @TableField(value = "storage")
+    private String storage;
+
     @TableField(exist = false)
     @Serial
     private static final long serialVersionUID = 1L;
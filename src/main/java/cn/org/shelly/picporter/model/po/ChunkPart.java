@@ -0,0 +1,64 @@
+package cn.org.shelly.picporter.model.po;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 分片上传记录表
+ * @TableName chunk_part
+ */
+@TableName(value ="chunk_part")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkPart implements Serializable {
+    /**
+     *
+     */
+    @TableId(value = "id")
+    private Long id;
+
+    /**
+     * 所属分片任务id
+     */
+    @TableField(value = "chunk_id")
+    private Long chunkId;
+
+    /**
+     * 分片序号，从1开始
+     */
+    @TableField(value = "part_number")
+    private Integer partNumber;
+
+    /**
+     * 分片ETag
+     */
+    @TableField(value = "etag")
+    private String etag;
+
+    /**
+     * 分片大小（byte）
+     */
+    @TableField(value = "size")
+    private Long size;
+
+    /**
+     *
+     */
+    @TableField(value = "gmt_create")
+    private Date gmtCreate;
+
+    @TableField(exist = false)
+    @Serial
+    private static final long serialVersionUID = 1L;
+}
@@ -3,8 +3,10 @@ package cn.org.shelly.picporter.model.po;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -17,6 +19,8 @@ import java.util.Date;
 @TableName(value ="file")
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class File implements Serializable {
     /**
      * 文件id
@@ -54,6 +58,18 @@ public class File implements Serializable {
     @TableField(value = "identifier")
     private String identifier;
 
+    /**
+     * 衍生图列表，逗号分隔，如 w160.jpg,w640.jpg
+     */
+    @TableField(value = "derivatives")
+    private String derivatives;
+
+    /**
+     * 存储模式（local/minio/oss），为空时为 upload.strategy 配置的存储
+     */
+    @TableField(value = "storage")
+    private String storage;
+
     /**
      * 创建者
      */
@@ -78,6 +94,12 @@ public class File implements Serializable {
     @TableField(value = "gmt_modified")
     private Date gmtModified;
 
+    /**
+     * 最后读取时间
+     */
+    @TableField(value = "gmt_access")
+    private Date gmtAccess;
+
     /**
      * 逻辑删除（0：未删除 1：已删除）
      */
@@ -0,0 +1,48 @@
+package cn.org.shelly.picporter.model.req;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 校验后的图片变换请求，变换前即可确定ETag
+ * @author shelly
+ */
+@Data
+@AllArgsConstructor
+public class ImageTransformReq {
+
+    /**
+     * 原图文件标识
+     */
+    private String identifier;
+
+    /**
+     * 最大宽度，为空表示不限制
+     */
+    private Integer width;
+
+    /**
+     * 最大高度，为空表示不限制
+     */
+    private Integer height;
+
+    /**
+     * 输出格式
+     */
+    private String format;
+
+    /**
+     * 有损编码质量，1~100
+     */
+    private int quality;
+
+    /**
+     * 变换规格，作为缓存键与磁盘缓存文件名，无损格式不含质量
+     */
+    private String spec;
+
+    /**
+     * 实体标签，由文件标识与变换规格确定
+     */
+    private String etag;
+}
@@ -0,0 +1,74 @@
+package cn.org.shelly.picporter.model.resp;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 文章图片替换结果DTO
+ */
+@Data
+@Accessors(chain = true)
+@Schema(name = "ArticleResp", description = "文章图片替换结果传输对象")
+public class ArticleResp {
+	/**
+	 * 替换后的文章内容
+	 */
+	@Schema(description = "替换后的文章内容")
+	private String content;
+
+	/**
+	 * 文章中本地图片数（去重后）
+	 */
+	@Schema(description = "文章中本地图片数（去重后）", example = "12")
+	private Integer imageCount;
+
+	/**
+	 * 上传成功的图片数
+	 */
+	@Schema(description = "上传成功的图片数", example = "11")
+	private Integer uploadedCount;
+
+	/**
+	 * 上传失败的图片及原因
+	 */
+	@Schema(description = "上传失败的图片及原因")
+	private List<ImageError> errors;
+
+	/**
+	 * 提取图片路径耗时（毫秒）
+	 */
+	@Schema(description = "提取图片路径耗时（毫秒）", example = "2")
+	private Long collectCost;
+
+	/**
+	 * 上传图片耗时（毫秒）
+	 */
+	@Schema(description = "上传图片耗时（毫秒）", example = "850")
+	private Long uploadCost;
+
+	/**
+	 * 替换链接耗时（毫秒）
+	 */
+	@Schema(description = "替换链接耗时（毫秒）", example = "1")
+	private Long rewriteCost;
+
+	/**
+	 * 单张图片上传失败信息
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Schema(name = "ImageError", description = "图片上传失败信息")
+	public static class ImageError {
+		@Schema(description = "图片本地路径", example = "D:/images/1.png")
+		private String path;
+
+		@Schema(description = "失败原因", example = "文件不存在: D:/images/1.png")
+		private String message;
+	}
+}
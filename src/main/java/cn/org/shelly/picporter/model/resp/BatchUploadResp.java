@@ -0,0 +1,49 @@
+package cn.org.shelly.picporter.model.resp;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 批量上传单项结果DTO
+ */
+@Data
+@Accessors(chain = true)
+@Schema(name = "BatchUploadResp", description = "批量上传单项结果传输对象")
+public class BatchUploadResp {
+	/**
+	 * 文件名
+	 */
+	@Schema(description = "文件名称", example = "截图1.png")
+	private String fileName;
+
+	/**
+	 * 文件唯一标识
+	 */
+	@Schema(description = "文件唯一标识（MD5值）", example = "e12a43fd9e24f6dc325aeb7202dd9e3c")
+	private String identifier;
+
+	/**
+	 * 是否成功
+	 */
+	@Schema(description = "是否上传成功", example = "true")
+	private boolean success;
+
+	/**
+	 * 是否秒传
+	 */
+	@Schema(description = "相同内容已存在，未重复上传", example = "false")
+	private boolean reused;
+
+	/**
+	 * 文件URL
+	 */
+	@Schema(description = "文件访问URL")
+	private String url;
+
+	/**
+	 * 失败原因
+	 */
+	@Schema(description = "失败原因")
+	private String message;
+}
@@ -10,6 +10,7 @@ import lombok.experimental.Accessors;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -56,6 +57,9 @@ public class FileChunkResp implements Serializable {
     @Schema(description = "已存在分片列表")
     private List<PartSummary> existPartList;
 
+    @Schema(description = "未上传分片的预签名直传地址，key为分片编号")
+    private Map<Integer, String> partUploadUrls;
+
     public static FileChunkResp build(Chunk chunk) {
         return new FileChunkResp()
                 .setId(chunk.getId())
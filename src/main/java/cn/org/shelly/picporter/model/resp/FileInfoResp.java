@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * 文件信息DTO
@@ -41,6 +42,12 @@ public class FileInfoResp {
 	@Schema(description = "文件访问URL", example = "http://minio-server:9000/bucket-name/2023-03-24/test.pdf?token=xxx")
 	private String url;
 
+	/**
+	 * 衍生图URL
+	 */
+	@Schema(description = "衍生图访问URL，key为衍生图名称（如w160）", example = "{\"w160\": \"http://minio-server:9000/bucket-name/article/test_w160.jpg\"}")
+	private Map<String, String> derivatives;
+
 	/**
 	 * 上传时间
 	 */
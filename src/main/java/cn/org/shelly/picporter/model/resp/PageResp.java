@@ -0,0 +1,45 @@
+package cn.org.shelly.picporter.model.resp;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 分页结果DTO
+ */
+@Data
+@Accessors(chain = true)
+@Schema(name = "PageResp", description = "分页结果传输对象")
+public class PageResp<T> {
+	/**
+	 * 当前页数据
+	 */
+	@Schema(description = "当前页数据")
+	private List<T> records;
+
+	/**
+	 * 总记录数，游标分页时不统计，为null
+	 */
+	@Schema(description = "总记录数，游标分页时为null", example = "128")
+	private Long total;
+
+	/**
+	 * 页码
+	 */
+	@Schema(description = "页码", example = "1")
+	private Integer pageNum;
+
+	/**
+	 * 每页记录数
+	 */
+	@Schema(description = "每页记录数", example = "10")
+	private Integer pageSize;
+
+	/**
+	 * 下一页游标，没有更多数据时为null
+	 */
+	@Schema(description = "下一页游标，没有更多数据时为null", example = "1718000000000_1800000000000000001")
+	private String nextCursor;
+}
@@ -0,0 +1,28 @@
+package cn.org.shelly.picporter.model.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 图片变换结果
+ * @author shelly
+ */
+@Data
+@AllArgsConstructor
+public class TransformedImage {
+
+    /**
+     * 编码后的图片数据
+     */
+    private byte[] data;
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+
+    /**
+     * 实体标签，由文件标识与变换参数确定
+     */
+    private String etag;
+}
@@ -0,0 +1,40 @@
+package cn.org.shelly.picporter.service;
+
+import cn.org.shelly.picporter.model.po.Chunk;
+import cn.org.shelly.picporter.model.po.ChunkPart;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.List;
+
+public interface IChunkPartService extends IService<ChunkPart> {
+
+    /**
+     * 记录一个已成功上传的分片
+     * @param task 分片任务
+     * @param partNumber 分片序号
+     * @param etag 分片ETag
+     * @param size 分片大小
+     */
+    void recordPart(Chunk task, int partNumber, String etag, long size);
+
+    /**
+     * 按分片序号升序列出任务已上传的分片
+     * @param task 分片任务
+     * @return 已上传分片列表
+     */
+    List<PartSummary> listParts(Chunk task);
+
+    /**
+     * 用存储服务返回的分片列表校正本地记录
+     * @param task 分片任务
+     * @param parts 存储服务中的分片列表
+     */
+    void reconcile(Chunk task, List<PartSummary> parts);
+
+    /**
+     * 删除任务的全部分片记录
+     * @param task 分片任务
+     */
+    void removeParts(Chunk task);
+}
@@ -5,4 +5,32 @@ import com.baomidou.mybatisplus.extension.service.IService;
 
 public interface IChunkService extends IService<Chunk> {
 
+    /**
+     * 根据文件唯一标识获取分片上传任务，优先读取本地缓存
+     * @param identifier 文件唯一标识
+     * @return {@link Chunk} 分片上传任务，不存在时返回null
+     */
+    Chunk getTaskByIdentifier(String identifier);
+
+    /**
+     * 将分片上传任务放入本地缓存
+     * @param task 分片上传任务
+     */
+    void cacheTask(Chunk task);
+
+    /**
+     * 使分片上传任务缓存失效
+     * @param identifier 文件唯一标识
+     */
+    void evictTask(String identifier);
+
+    /**
+     * 缓存命中次数
+     */
+    long getCacheHitCount();
+
+    /**
+     * 缓存未命中次数
+     */
+    long getCacheMissCount();
 }
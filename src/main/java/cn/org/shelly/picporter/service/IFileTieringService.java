@@ -0,0 +1,40 @@
+package cn.org.shelly.picporter.service;
+
+public interface IFileTieringService {
+
+    /**
+     * 记录文件被读取，只写入内存，由后台定期写回数据库
+     * @param identifier 文件唯一标识
+     */
+    void touch(String identifier);
+
+    /**
+     * 将内存中的读取记录写回数据库
+     */
+    void flushAccess();
+
+    /**
+     * 执行一轮迁移，将超过期限未读取的文件从热存储迁移到冷存储
+     */
+    void migrate();
+
+    /**
+     * 已迁移的文件数
+     */
+    long getMovedCount();
+
+    /**
+     * 已迁移的字节数（含衍生图）
+     */
+    long getMovedBytes();
+
+    /**
+     * 迁移失败的文件数
+     */
+    long getFailedCount();
+
+    /**
+     * 尚未写回数据库的读取记录数
+     */
+    int getPendingAccessCount();
+}
@@ -0,0 +1,51 @@
+package cn.org.shelly.picporter.service;
+
+/**
+ * 文件标识布隆过滤器服务，用于秒传判断前快速排除不存在的文件
+ */
+public interface IIdentifierFilterService {
+
+    /**
+     * 判断文件标识是否可能已存在
+     * @param identifier 文件唯一标识
+     * @return false表示一定不存在，无需查询数据库
+     */
+    boolean mightExist(String identifier);
+
+    /**
+     * 记录新增的文件标识，需在文件记录写入数据库之后调用
+     * @param identifier 文件唯一标识
+     */
+    void add(String identifier);
+
+    /**
+     * 记录被删除的文件标识，布隆过滤器无法删除元素，删除过多时会重建
+     * @param identifier 文件唯一标识
+     */
+    void remove(String identifier);
+
+    /**
+     * 过滤器是否已完成预热
+     */
+    boolean isReady();
+
+    /**
+     * 被过滤器直接判定为不存在的次数
+     */
+    long getFilteredCount();
+
+    /**
+     * 需要继续查询数据库的次数
+     */
+    long getPassedCount();
+
+    /**
+     * 当前估算误判率
+     */
+    double getExpectedFpp();
+
+    /**
+     * 过滤器占用内存（字节）
+     */
+    long getMemoryBytes();
+}
@@ -0,0 +1,66 @@
+package cn.org.shelly.picporter.service;
+
+import cn.org.shelly.picporter.model.req.ImageTransformReq;
+import cn.org.shelly.picporter.model.resp.TransformedImage;
+
+import java.io.IOException;
+
+/**
+ * 图片实时变换服务，结果缓存在堆内与本地磁盘两级缓存中
+ */
+public interface IImageTransformService {
+
+    /**
+     * 校验参数并确定输出格式、变换规格与ETag，只查询文件信息，不读取原图
+     * @param identifier 文件唯一标识
+     * @param width 最大宽度，为空表示不限制
+     * @param height 最大高度，为空表示不限制
+     * @param format 输出格式，为空时自动选择
+     * @param quality 有损编码质量，1~100，为空时使用默认值，无损格式忽略
+     * @return {@link ImageTransformReq}
+     */
+    ImageTransformReq prepare(String identifier, Integer width, Integer height, String format, Integer quality);
+
+    /**
+     * 按规格缩放并重新编码图片，相同规格的并发请求只解码一次
+     * @param req {@link #prepare} 返回的变换请求
+     * @return {@link TransformedImage}
+     */
+    TransformedImage transform(ImageTransformReq req) throws IOException;
+
+    /**
+     * 清除文件的全部变换缓存
+     * @param identifier 文件唯一标识
+     */
+    void evict(String identifier);
+
+    /**
+     * 堆内缓存命中次数
+     */
+    long getHeapHitCount();
+
+    /**
+     * 磁盘缓存命中次数
+     */
+    long getDiskHitCount();
+
+    /**
+     * 实际执行解码缩放的次数
+     */
+    long getTransformCount();
+
+    /**
+     * 合并到进行中请求的次数
+     */
+    long getCoalescedCount();
+
+    /**
+     * 堆内缓存占用（byte）
+     */
+    long getHeapBytes();
+
+    /**
+     * 磁盘缓存占用（byte）
+     */
+    long getDiskBytes();
+}
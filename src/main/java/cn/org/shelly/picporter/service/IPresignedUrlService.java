@@ -0,0 +1,41 @@
+package cn.org.shelly.picporter.service;
+
+import java.util.Date;
+import java.util.function.Function;
+
+public interface IPresignedUrlService {
+
+    /**
+     * 获取对象的预签名访问地址，缓存未命中或即将过期时重新签名
+     * @param objectKey 对象键
+     * @param signer 签名函数，参数为过期时间，返回null表示不支持签名
+     * @return {@link String} 预签名地址，签名失败时返回null
+     */
+    String getUrl(String objectKey, Function<Date, String> signer);
+
+    /**
+     * 使对象的预签名地址缓存失效
+     * @param objectKey 对象键
+     */
+    void evict(String objectKey);
+
+    /**
+     * 缓存命中次数
+     */
+    long getCacheHitCount();
+
+    /**
+     * 缓存未命中次数
+     */
+    long getCacheMissCount();
+
+    /**
+     * 签名次数
+     */
+    long getSignCount();
+
+    /**
+     * 签名累计耗时（纳秒）
+     */
+    long getSignTotalNanos();
+}
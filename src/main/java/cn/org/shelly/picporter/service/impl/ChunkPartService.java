@@ -0,0 +1,76 @@
+package cn.org.shelly.picporter.service.impl;
+
+import cn.org.shelly.picporter.mapper.ChunkPartMapper;
+import cn.org.shelly.picporter.model.po.Chunk;
+import cn.org.shelly.picporter.model.po.ChunkPart;
+import cn.org.shelly.picporter.service.IChunkPartService;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 分片上传记录服务
+ * <p>
+ * 每个分片上传成功后记录序号、ETag与大小，进度查询与合并直接读取本地记录，
+ * 不再每次调用存储服务的ListParts接口
+ * </p>
+ */
+@Service
+public class ChunkPartService extends ServiceImpl<ChunkPartMapper, ChunkPart>
+    implements IChunkPartService {
+
+    @Override
+    public void recordPart(Chunk task, int partNumber, String etag, long size) {
+        baseMapper.upsert(ChunkPart.builder()
+                .id(IdWorker.getId())
+                .chunkId(task.getId())
+                .partNumber(partNumber)
+                .etag(etag)
+                .size(size)
+                .build());
+    }
+
+    @Override
+    public List<PartSummary> listParts(Chunk task) {
+        return baseMapper.selectList(new QueryWrapper<ChunkPart>()
+                        .eq("chunk_id", task.getId())
+                        .orderByAsc("part_number"))
+                .stream()
+                .map(ChunkPartService::toPartSummary)
+                .toList();
+    }
+
+    @Override
+    public void reconcile(Chunk task, List<PartSummary> parts) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        baseMapper.upsertBatch(parts.stream()
+                .map(part -> ChunkPart.builder()
+                        .id(IdWorker.getId())
+                        .chunkId(task.getId())
+                        .partNumber(part.getPartNumber())
+                        .etag(part.getETag())
+                        .size(part.getSize())
+                        .build())
+                .toList());
+    }
+
+    @Override
+    public void removeParts(Chunk task) {
+        baseMapper.delete(new QueryWrapper<ChunkPart>().eq("chunk_id", task.getId()));
+    }
+
+    private static PartSummary toPartSummary(ChunkPart chunkPart) {
+        PartSummary part = new PartSummary();
+        part.setPartNumber(chunkPart.getPartNumber());
+        part.setETag(chunkPart.getEtag());
+        part.setSize(chunkPart.getSize());
+        part.setLastModified(chunkPart.getGmtCreate());
+        return part;
+    }
+}
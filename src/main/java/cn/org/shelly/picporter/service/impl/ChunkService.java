@@ -1,15 +1,75 @@
 package cn.org.shelly.picporter.service.impl;
 
+import cn.hutool.cache.impl.LRUCache;
 import cn.org.shelly.picporter.mapper.ChunkMapper;
 import cn.org.shelly.picporter.model.po.Chunk;
 import cn.org.shelly.picporter.service.IChunkService;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * 分片任务服务
+ * <p>
+ * 分片上传过程中每个分片都需要读取任务信息，这里按identifier在进程内缓存进行中的任务，
+ * 避免每个分片请求都查询数据库；任务合并或删除时需调用 {@link #evictTask(String)} 失效缓存
+ * </p>
+ */
 @Service
 public class ChunkService extends ServiceImpl<ChunkMapper, Chunk>
     implements IChunkService{
 
-}
+    /**
+     * 最多缓存的任务数
+     */
+    @Value("${upload.chunk-cache.capacity:1024}")
+    private int capacity;
+
+    /**
+     * 缓存过期时间（毫秒），按最后一次访问计算
+     */
+    @Value("${upload.chunk-cache.ttl:1800000}")
+    private long ttl;
+
+    private LRUCache<String, Chunk> taskCache;
+
+    @PostConstruct
+    public void init() {
+        taskCache = new LRUCache<>(capacity, ttl);
+    }
 
+    @Override
+    public Chunk getTaskByIdentifier(String identifier) {
+        Chunk task = taskCache.get(identifier);
+        if (task != null) {
+            return task;
+        }
+        task = baseMapper.selectOne(new QueryWrapper<Chunk>().eq("identifier", identifier));
+        if (task != null) {
+            taskCache.put(identifier, task);
+        }
+        return task;
+    }
 
+    @Override
+    public void cacheTask(Chunk task) {
+        taskCache.put(task.getIdentifier(), task);
+    }
+
+    @Override
+    public void evictTask(String identifier) {
+        taskCache.remove(identifier);
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return taskCache.getHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return taskCache.getMissCount();
+    }
+}
@@ -0,0 +1,321 @@
+package cn.org.shelly.picporter.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.org.shelly.picporter.config.properties.TieringProperties;
+import cn.org.shelly.picporter.enums.UploadModeEnum;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.mapper.FileMapper;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.service.IFileTieringService;
+import cn.org.shelly.picporter.service.IPresignedUrlService;
+import cn.org.shelly.picporter.strategy.StorageRegistry;
+import cn.org.shelly.picporter.strategy.impl.AbstractUploadStrategyImpl;
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 冷热分层服务
+ * <p>
+ * 经服务端读取文件时只在内存中记录标识，定期批量写回 file.gmt_access，读取路径上没有数据库写入；
+ * 后台按 interval 扫描热存储中超过 cold-after-days 天未读取的文件，限速复制原图与衍生图到冷存储后更新 file.storage，
+ * 之后的读取与删除即按记录路由到冷存储。热存储中的原对象延后到下一轮再删除，保证切换前已开始的读取能够完成；
+ * 服务在此之前重启时热存储中会遗留副本，不影响读取
+ * </p>
+ * <p>
+ * 迁移后存储地址失效，因此启用时必须配置 file-url，上传与列表返回经服务读取的固定地址；
+ * 启用前已发出的存储地址不会改写，其中的文件迁移后将无法通过原地址访问
+ * </p>
+ */
+@Slf4j
+@Service
+public class FileTieringService implements IFileTieringService {
+
+    /**
+     * 读取时间每批写回的标识数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Resource
+    private TieringProperties tieringProperties;
+
+    @Resource
+    private FileMapper fileMapper;
+
+    @Resource
+    private StorageRegistry storageRegistry;
+
+    @Resource
+    private IPresignedUrlService presignedUrlService;
+
+    @Value("${upload.is-stored}")
+    private boolean isStored;
+
+    /**
+     * 尚未写回的读取记录
+     */
+    private final Set<String> accessed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已迁移、待删除的热存储对象
+     */
+    private final Queue<PendingRemoval> pendingRemovals = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder movedCount = new LongAdder();
+
+    private final LongAdder movedBytes = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        enabled = tieringProperties.isEnabled() && isStored;
+        if (!enabled) {
+            return;
+        }
+        UploadModeEnum hot = UploadModeEnum.of(tieringProperties.getHot());
+        UploadModeEnum cold = UploadModeEnum.of(tieringProperties.getCold());
+        if (hot == cold) {
+            throw new IllegalStateException("冷热分层的热存储与冷存储不能相同: " + hot.getMode());
+        }
+        // 文件迁移后存储地址失效，不允许在返回存储地址的情况下启用
+        if (StringUtils.isBlank(tieringProperties.getFileUrl())) {
+            throw new IllegalStateException("启用冷热分层时需配置 upload.tiering.file-url，文件地址改为经服务读取");
+        }
+        log.info("冷热分层已启用: {} -> {}，{}天未读取的文件迁移", hot.getMode(), cold.getMode(), tieringProperties.getColdAfterDays());
+    }
+
+    @Override
+    public void touch(String identifier) {
+        if (enabled) {
+            accessed.add(identifier);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${upload.tiering.access-flush-interval:60000}")
+    public void flushAccess() {
+        if (!enabled || accessed.isEmpty()) {
+            return;
+        }
+        List<String> identifiers = new ArrayList<>(accessed.size());
+        for (String identifier : accessed) {
+            accessed.remove(identifier);
+            identifiers.add(identifier);
+        }
+        Date now = new Date();
+        for (List<String> batch : ListUtil.partition(identifiers, FLUSH_BATCH_SIZE)) {
+            fileMapper.update(null, new UpdateWrapper<File>()
+                    .set("gmt_access", now)
+                    .in("identifier", batch));
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${upload.tiering.interval:3600000}", initialDelayString = "${upload.tiering.interval:3600000}")
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        removePending();
+        AbstractUploadStrategyImpl hot;
+        AbstractUploadStrategyImpl cold;
+        try {
+            hot = storageRegistry.get(tieringProperties.getHot());
+            cold = storageRegistry.get(tieringProperties.getCold());
+        } catch (CustomException e) {
+            log.warn("冷热分层跳过: {}", e.getMessage());
+            return;
+        }
+        // 先写回最近的读取，避免刚被读取的文件被迁移
+        flushAccess();
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(tieringProperties.getColdAfterDays()));
+        List<File> files = fileMapper.selectList(hotFiles(new QueryWrapper<File>()
+                .select("id", "identifier", "object_key", "derivatives", "storage"))
+                .lt("gmt_access", cutoff)
+                .orderByAsc("gmt_access")
+                .last("LIMIT " + tieringProperties.getBatchSize()));
+        if (files.isEmpty()) {
+            return;
+        }
+        Throttle throttle = new Throttle(tieringProperties.getBytesPerSecond());
+        int moved = 0;
+        for (File file : files) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (move(file, hot, cold, throttle)) {
+                moved++;
+            }
+        }
+        log.info("冷热分层迁移完成: {}/{} 个文件，{} 字节", moved, files.size(), throttle.bytes);
+    }
+
+    @Override
+    public long getMovedCount() {
+        return movedCount.sum();
+    }
+
+    @Override
+    public long getMovedBytes() {
+        return movedBytes.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    @Override
+    public int getPendingAccessCount() {
+        return accessed.size();
+    }
+
+    /**
+     * 迁移单个文件：复制原图与衍生图，仅在文件仍位于热存储时更新记录，否则清理已复制的对象
+     */
+    private boolean move(File file, AbstractUploadStrategyImpl hot, AbstractUploadStrategyImpl cold, Throttle throttle) {
+        List<String> keys = new ArrayList<>();
+        keys.add(file.getObjectKey());
+        keys.addAll(AbstractUploadStrategyImpl.derivativeKeys(file));
+        List<String> copied = new ArrayList<>(keys.size());
+        long bytes = 0;
+        try {
+            for (String key : keys) {
+                long size = hot.copyTo(key, cold, throttle::wrap);
+                if (size >= 0) {
+                    copied.add(key);
+                    bytes += size;
+                } else if (key.equals(file.getObjectKey())) {
+                    throw new CustomException("对象不存在");
+                }
+            }
+        } catch (Exception e) {
+            log.error("冷热分层迁移失败: {}", file.getObjectKey(), e);
+            copied.forEach(cold::removeObject);
+            failedCount.increment();
+            // 重置读取时间，避免失败的文件在之后每轮都占用批次
+            fileMapper.update(null, new UpdateWrapper<File>().set("gmt_access", new Date()).eq("id", file.getId()));
+            return false;
+        }
+        int updated = fileMapper.update(null, hotFiles(new UpdateWrapper<File>()
+                .set("storage", cold.getMode().getMode())
+                .eq("id", file.getId())));
+        if (updated == 0) {
+            // 迁移期间文件已被删除
+            copied.forEach(cold::removeObject);
+            return false;
+        }
+        keys.forEach(presignedUrlService::evict);
+        storageRegistry.all().forEach(strategy -> strategy.evictFile(file.getIdentifier()));
+        pendingRemovals.add(new PendingRemoval(hot, copied));
+        movedCount.increment();
+        movedBytes.add(bytes);
+        return true;
+    }
+
+    /**
+     * 限定为热存储中的文件，热存储为 upload.strategy 时包含未记录存储的文件
+     */
+    private <W extends AbstractWrapper<File, String, W>> W hotFiles(W wrapper) {
+        String hot = tieringProperties.getHot();
+        if (hot.equals(storageRegistry.getDefaultStorage())) {
+            return wrapper.and(w -> w.eq("storage", hot).or().isNull("storage"));
+        }
+        return wrapper.eq("storage", hot);
+    }
+
+    /**
+     * 删除上一轮已迁移文件在热存储中的原对象
+     */
+    private void removePending() {
+        PendingRemoval removal;
+        while ((removal = pendingRemovals.poll()) != null) {
+            for (String key : removal.objectKeys()) {
+                if (!removal.storage().removeObject(key)) {
+                    log.warn("热存储对象删除失败: {}", key);
+                }
+            }
+        }
+    }
+
+    private record PendingRemoval(AbstractUploadStrategyImpl storage, List<String> objectKeys) {
+    }
+
+    /**
+     * 迁移限速，按一轮迁移的累计字节数控制平均速率
+     */
+    private static class Throttle {
+
+        private final long bytesPerSecond;
+
+        private final long start = System.nanoTime();
+
+        private long bytes;
+
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        InputStream wrap(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        acquire(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) {
+                        acquire(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        private void acquire(int n) throws InterruptedIOException {
+            bytes += n;
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long wait = bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond - (System.nanoTime() - start);
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("迁移已中断");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cn.org.shelly.picporter.service.impl;
+
+import cn.org.shelly.picporter.mapper.FileMapper;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.service.IIdentifierFilterService;
+import cn.org.shelly.picporter.utils.BloomFilter;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文件标识布隆过滤器服务
+ * <p>
+ * 启动后在后台线程中分批扫描file表预热，预热完成前所有判断都放行到数据库；
+ * 删除的标识无法从过滤器中移除，删除数超过写入数的一定比例时在后台重建过滤器
+ * </p>
+ */
+@Slf4j
+@Service
+public class IdentifierFilterService implements IIdentifierFilterService {
+
+    /**
+     * 预热时每批读取的记录数
+     */
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    @Resource
+    private FileMapper fileMapper;
+
+    @Value("${upload.is-stored}")
+    private boolean isStored;
+
+    @Value("${upload.bloom-filter.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 预计文件数
+     */
+    @Value("${upload.bloom-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    /**
+     * 期望误判率
+     */
+    @Value("${upload.bloom-filter.fpp:0.01}")
+    private double fpp;
+
+    /**
+     * 删除数占写入数的比例超过该值时重建
+     */
+    @Value("${upload.bloom-filter.rebuild-ratio:0.2}")
+    private double rebuildRatio;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * 重建中的过滤器，重建期间新写入同时写入两个过滤器；替换 filter 后才清空
+     */
+    private volatile BloomFilter building;
+
+    private volatile boolean ready;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private final LongAdder removed = new LongAdder();
+
+    private final LongAdder filteredCount = new LongAdder();
+
+    private final LongAdder passedCount = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || !isStored) {
+            return;
+        }
+        rebuild();
+    }
+
+    @Override
+    public boolean mightExist(String identifier) {
+        BloomFilter current = filter;
+        if (!ready || current == null || current.mightContain(identifier)) {
+            passedCount.increment();
+            return true;
+        }
+        filteredCount.increment();
+        return false;
+    }
+
+    @Override
+    public void add(String identifier) {
+        if (StringUtils.isBlank(identifier)) {
+            return;
+        }
+        // 先读 building 再读 filter：重建先替换 filter 再清空 building，
+        // 读到 building 为空时读到的 filter 必然已是替换后的过滤器，不会只写入被丢弃的旧过滤器；
+        // building 尚未创建时调用方的记录已写入数据库，会被重建扫描读到
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(identifier);
+        }
+        if (next != null && next != current) {
+            next.put(identifier);
+        }
+    }
+
+    @Override
+    public void remove(String identifier) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        removed.increment();
+        if (removed.sum() > current.getInsertions() * rebuildRatio) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public long getFilteredCount() {
+        return filteredCount.sum();
+    }
+
+    @Override
+    public long getPassedCount() {
+        return passedCount.sum();
+    }
+
+    @Override
+    public double getExpectedFpp() {
+        BloomFilter current = filter;
+        return current == null ? 1.0 : current.expectedFpp();
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.memoryBytes();
+    }
+
+    /**
+     * 在后台线程中扫描file表构建新的过滤器，完成后原子替换
+     */
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                BloomFilter next = new BloomFilter(expectedInsertions, fpp);
+                building = next;
+                long lastId = 0;
+                long total = 0;
+                List<File> batch;
+                do {
+                    batch = fileMapper.selectList(new QueryWrapper<File>()
+                            .select("id", "identifier")
+                            .gt("id", lastId)
+                            .orderByAsc("id")
+                            .last("LIMIT " + WARM_UP_BATCH_SIZE));
+                    for (File file : batch) {
+                        if (StringUtils.isNotBlank(file.getIdentifier())) {
+                            next.put(file.getIdentifier());
+                        }
+                        lastId = file.getId();
+                    }
+                    total += batch.size();
+                } while (batch.size() == WARM_UP_BATCH_SIZE);
+                filter = next;
+                removed.reset();
+                ready = true;
+                log.info("布隆过滤器构建完成，文件数：{}，内存：{}KB，耗时：{}ms",
+                        total, next.memoryBytes() / 1024, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("布隆过滤器构建失败，秒传判断将直接查询数据库", e);
+            } finally {
+                building = null;
+                rebuilding.set(false);
+            }
+        }, "identifier-bloom-filter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,447 @@
+package cn.org.shelly.picporter.service.impl;
+
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.io.file.FileNameUtil;
+import cn.org.shelly.picporter.config.properties.DerivativeProperties;
+import cn.org.shelly.picporter.config.properties.TransformProperties;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.mapper.FileMapper;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.model.req.ImageTransformReq;
+import cn.org.shelly.picporter.model.resp.TransformedImage;
+import cn.org.shelly.picporter.service.IImageTransformService;
+import cn.org.shelly.picporter.strategy.StoredObject;
+import cn.org.shelly.picporter.strategy.context.UploadStrategyContext;
+import cn.org.shelly.picporter.utils.ImageDerivatives;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 图片实时变换服务
+ * <p>
+ * 查找顺序为堆内缓存、磁盘缓存、原图解码。堆内缓存按结果字节数限制容量，LRU淘汰；
+ * 磁盘缓存按文件最近访问时间清理。相同参数的并发请求合并为一次解码，其余请求等待其结果，
+ * 热门图片缓存失效时不会同时触发多次解码。
+ * 变换规格与ETag只依赖文件标识与文件名，命中缓存或协商缓存时不读取原图元信息
+ * </p>
+ */
+@Slf4j
+@Service
+public class ImageTransformService implements IImageTransformService {
+
+    /**
+     * 磁盘缓存清理后的目标占用比例
+     */
+    private static final double DISK_SWEEP_TARGET = 0.8;
+
+    @Resource
+    private TransformProperties transformProperties;
+
+    @Resource
+    private DerivativeProperties derivativeProperties;
+
+    @Resource
+    private UploadStrategyContext uploadStrategyContext;
+
+    @Resource
+    private ExecutorService derivativeExecutor;
+
+    @Resource
+    private FileMapper fileMapper;
+
+    @Value("${upload.is-stored}")
+    private boolean isStored;
+
+    /**
+     * 原图文件名缓存，确定变换规格与ETag时无需每次查询数据库
+     */
+    private LRUCache<String, String> fileNames;
+
+    private final LinkedHashMap<String, TransformedImage> heapCache = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long heapBytes;
+
+    private final ConcurrentHashMap<String, CompletableFuture<TransformedImage>> inFlight = new ConcurrentHashMap<>();
+
+    private Semaphore permits;
+
+    private Path diskRoot;
+
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder heapHits = new LongAdder();
+
+    private final LongAdder diskHits = new LongAdder();
+
+    private final LongAdder transforms = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        permits = new Semaphore(transformProperties.getMaxConcurrent());
+        fileNames = new LRUCache<>(transformProperties.getFileCacheCapacity());
+        diskRoot = Paths.get(transformProperties.getDiskPath()).toAbsolutePath().normalize();
+        Files.createDirectories(diskRoot);
+        try (Stream<Path> files = Files.walk(diskRoot)) {
+            diskBytes.set(files.filter(Files::isRegularFile).mapToLong(ImageTransformService::sizeOf).sum());
+        }
+    }
+
+    @Override
+    public ImageTransformReq prepare(String identifier, Integer width, Integer height, String format, Integer quality) {
+        checkDimension(width);
+        checkDimension(height);
+        int q = quality == null ? Math.round(derivativeProperties.getQuality() * 100) : quality;
+        if (q < 1 || q > 100) {
+            throw new CustomException("图片质量需在1~100之间");
+        }
+        String fmt = format == null ? null : format.toLowerCase();
+        if (fmt != null && !ImageDerivatives.isWritable(fmt)) {
+            throw new CustomException("不支持的图片格式: " + format);
+        }
+        String fileName = fileName(identifier);
+        if (fmt == null) {
+            fmt = autoFormat(fileName);
+        }
+        // 无损格式不使用质量参数，不同q的请求共用同一份缓存
+        String spec = "w" + (width == null ? 0 : width) + "_h" + (height == null ? 0 : height)
+                + (ImageDerivatives.isLossless(fmt) ? "" : "_q" + q) + "." + fmt;
+        String etag = "\"" + identifier + "-" + spec + "\"";
+        return new ImageTransformReq(identifier, width, height, fmt, q, spec, etag);
+    }
+
+    @Override
+    public TransformedImage transform(ImageTransformReq req) throws IOException {
+        String key = req.getIdentifier() + ":" + req.getSpec();
+        TransformedImage cached = heapGet(key);
+        if (cached != null) {
+            heapHits.increment();
+            return cached;
+        }
+        CompletableFuture<TransformedImage> mine = new CompletableFuture<>();
+        CompletableFuture<TransformedImage> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            TransformedImage result = load(req, key);
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void evict(String identifier) {
+        fileNames.remove(identifier);
+        String keyPrefix = identifier + ":";
+        synchronized (heapCache) {
+            Iterator<Map.Entry<String, TransformedImage>> it = heapCache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, TransformedImage> entry = it.next();
+                if (entry.getKey().startsWith(keyPrefix)) {
+                    heapBytes -= entry.getValue().getData().length;
+                    it.remove();
+                }
+            }
+        }
+        Path dir = diskDir(identifier);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            log.warn("清除变换缓存失败: {}", dir, e);
+        }
+    }
+
+    @Override
+    public long getHeapHitCount() {
+        return heapHits.sum();
+    }
+
+    @Override
+    public long getDiskHitCount() {
+        return diskHits.sum();
+    }
+
+    @Override
+    public long getTransformCount() {
+        return transforms.sum();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public long getHeapBytes() {
+        synchronized (heapCache) {
+            return heapBytes;
+        }
+    }
+
+    @Override
+    public long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    /**
+     * 依次查找磁盘缓存与原图，结果写回两级缓存，只有两级缓存均未命中时才读取原图元信息
+     */
+    private TransformedImage load(ImageTransformReq req, String key) throws IOException {
+        // 等待期间其他请求可能已写入堆内缓存
+        TransformedImage cached = heapGet(key);
+        if (cached != null) {
+            return cached;
+        }
+        Path file = diskDir(req.getIdentifier()).resolve(req.getSpec());
+        byte[] data = readDisk(file);
+        if (data != null) {
+            diskHits.increment();
+        } else {
+            StoredObject object = uploadStrategyContext.getObject(req.getIdentifier());
+            data = render(object, req.getWidth(), req.getHeight(), req.getFormat(), req.getQuality());
+            writeDisk(file, data);
+        }
+        TransformedImage result = new TransformedImage(data, ImageDerivatives.contentType(req.getFormat()), req.getEtag());
+        heapPut(key, result);
+        return result;
+    }
+
+    /**
+     * 读取原图并缩放编码，限制同时解码的任务数
+     */
+    private byte[] render(StoredObject object, Integer width, Integer height, String fmt, int quality) throws IOException {
+        if (object.getSize() > derivativeProperties.getMaxSourceSize()) {
+            throw new CustomException("原图过大，无法变换");
+        }
+        permits.acquireUninterruptibly();
+        try {
+            ByteArrayOutputStream source = new ByteArrayOutputStream((int) object.getSize());
+            if (object.getSize() > 0) {
+                uploadStrategyContext.writeObject(object, 0, object.getSize() - 1, source);
+            }
+            BufferedImage image = ImageDerivatives.read(source.toByteArray(), derivativeProperties.getMaxPixels());
+            if (image == null) {
+                throw new CustomException("图片无法解码或尺寸超限");
+            }
+            transforms.increment();
+            return ImageDerivatives.encode(ImageDerivatives.fit(image, width, height), fmt, quality / 100f);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 查询原图文件名，同时确认文件存在；结果按标识缓存，删除文件时随变换缓存一起清除
+     */
+    private String fileName(String identifier) {
+        String cached = fileNames.get(identifier);
+        if (cached != null) {
+            return cached;
+        }
+        if (!isStored) {
+            throw new CustomException("未开启数据库功能！");
+        }
+        File file = fileMapper.selectOne(new QueryWrapper<File>()
+                .select("file_name")
+                .eq("identifier", identifier)
+                .last("LIMIT 1"));
+        if (file == null) {
+            throw new CustomException("文件不存在");
+        }
+        String fileName = StringUtils.defaultString(file.getFileName());
+        fileNames.put(identifier, fileName);
+        return fileName;
+    }
+
+    /**
+     * 未指定格式时优先使用配置的格式；配置的格式不支持透明而原图可能含透明通道时沿用原图格式
+     * <p>
+     * 格式需在解码前确定以生成ETag，因此按原图后缀判断是否可能含透明通道
+     * </p>
+     */
+    private String autoFormat(String fileName) {
+        String preferred = derivativeProperties.getFormat().toLowerCase();
+        String suffix = FileNameUtil.extName(fileName);
+        suffix = suffix == null ? null : suffix.toLowerCase();
+        if (ImageDerivatives.supportsAlpha(preferred) || !ImageDerivatives.supportsAlpha(suffix)
+                || !ImageDerivatives.isWritable(suffix)) {
+            return preferred;
+        }
+        return suffix;
+    }
+
+    private void checkDimension(Integer value) {
+        if (value != null && (value < 1 || value > transformProperties.getMaxDimension())) {
+            throw new CustomException("图片尺寸需在1~" + transformProperties.getMaxDimension() + "之间");
+        }
+    }
+
+    private static TransformedImage await(CompletableFuture<TransformedImage> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("图片处理被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new CustomException("图片处理失败");
+        }
+    }
+
+    private TransformedImage heapGet(String key) {
+        synchronized (heapCache) {
+            return heapCache.get(key);
+        }
+    }
+
+    private void heapPut(String key, TransformedImage image) {
+        long size = image.getData().length;
+        if (size > transformProperties.getHeapMaxEntrySize()) {
+            return;
+        }
+        synchronized (heapCache) {
+            TransformedImage old = heapCache.put(key, image);
+            heapBytes += size - (old == null ? 0 : old.getData().length);
+            Iterator<TransformedImage> it = heapCache.values().iterator();
+            while (heapBytes > transformProperties.getHeapCapacity() && it.hasNext()) {
+                heapBytes -= it.next().getData().length;
+                it.remove();
+            }
+        }
+    }
+
+    private Path diskDir(String identifier) {
+        Path dir = diskRoot.resolve(identifier.length() > 2 ? identifier.substring(0, 2) : "_").resolve(identifier).normalize();
+        if (!dir.startsWith(diskRoot)) {
+            throw new CustomException("非法的文件标识");
+        }
+        return dir;
+    }
+
+    private byte[] readDisk(Path file) {
+        try {
+            byte[] data = Files.readAllBytes(file);
+            // 以修改时间记录最近访问，供容量清理使用
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeDisk(Path file, byte[] data) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            diskBytes.addAndGet(data.length);
+        } catch (IOException e) {
+            log.warn("写入变换缓存失败: {}", file, e);
+            return;
+        }
+        if (diskBytes.get() > transformProperties.getDiskCapacity() && sweeping.compareAndSet(false, true)) {
+            try {
+                derivativeExecutor.execute(this::sweepDisk);
+            } catch (RejectedExecutionException e) {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * 按最近访问时间从旧到新删除磁盘缓存，直到占用降到容量的80%
+     */
+    private void sweepDisk() {
+        try (Stream<Path> files = Files.walk(diskRoot)) {
+            List<Path> list = new ArrayList<>(files.filter(Files::isRegularFile).toList());
+            list.sort(Comparator.comparingLong(ImageTransformService::lastModified));
+            long target = (long) (transformProperties.getDiskCapacity() * DISK_SWEEP_TARGET);
+            for (Path file : list) {
+                if (diskBytes.get() <= target) {
+                    break;
+                }
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("清理变换缓存失败", e);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
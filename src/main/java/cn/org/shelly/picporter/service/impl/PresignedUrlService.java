@@ -0,0 +1,93 @@
+package cn.org.shelly.picporter.service.impl;
+
+import cn.hutool.cache.impl.LRUCache;
+import cn.org.shelly.picporter.service.IPresignedUrlService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 预签名地址服务
+ * <p>
+ * 私有桶的列表结果需要为每个对象生成预签名GET地址，SDK签名开销较大，
+ * 这里按对象键缓存签名结果，缓存在地址过期前 refresh-before 毫秒失效，保证返回的地址始终有足够的剩余有效期
+ * </p>
+ */
+@Service
+public class PresignedUrlService implements IPresignedUrlService {
+
+    /**
+     * 预签名地址有效期（毫秒）
+     */
+    @Value("${upload.presign.get-expiration:3600000}")
+    private long expiration;
+
+    /**
+     * 地址过期前多久重新签名（毫秒）
+     */
+    @Value("${upload.presign.refresh-before:300000}")
+    private long refreshBefore;
+
+    /**
+     * 最多缓存的地址数
+     */
+    @Value("${upload.presign.cache-capacity:10000}")
+    private int capacity;
+
+    private LRUCache<String, String> urlCache;
+
+    private final LongAdder signCount = new LongAdder();
+
+    private final LongAdder signNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        urlCache = new LRUCache<>(capacity, Math.max(expiration - refreshBefore, 1));
+    }
+
+    @Override
+    public String getUrl(String objectKey, Function<Date, String> signer) {
+        // 不刷新访问时间，缓存时长从签名时刻起算
+        String url = urlCache.get(objectKey, false);
+        if (url != null) {
+            return url;
+        }
+        long start = System.nanoTime();
+        url = signer.apply(new Date(System.currentTimeMillis() + expiration));
+        signNanos.add(System.nanoTime() - start);
+        signCount.increment();
+        if (url != null) {
+            urlCache.put(objectKey, url);
+        }
+        return url;
+    }
+
+    @Override
+    public void evict(String objectKey) {
+        urlCache.remove(objectKey);
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return urlCache.getHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return urlCache.getMissCount();
+    }
+
+    @Override
+    public long getSignCount() {
+        return signCount.sum();
+    }
+
+    @Override
+    public long getSignTotalNanos() {
+        return signNanos.sum();
+    }
+}
@@ -0,0 +1,59 @@
+package cn.org.shelly.picporter.strategy;
+
+import cn.org.shelly.picporter.enums.UploadModeEnum;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.strategy.impl.AbstractUploadStrategyImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已加载的存储
+ * <p>
+ * 各存储策略初始化时自行注册，供策略之间按文件记录的存储模式互相委托对象读取、删除，
+ * 避免策略直接注入其他策略造成循环依赖
+ * </p>
+ * @author shelly
+ */
+@Component
+public class StorageRegistry {
+
+    /**
+     * 未记录存储模式的文件（升级前写入）所在的存储
+     */
+    @Value("${upload.strategy}")
+    private String defaultStorage;
+
+    private final Map<UploadModeEnum, AbstractUploadStrategyImpl> strategies =
+            Collections.synchronizedMap(new EnumMap<>(UploadModeEnum.class));
+
+    public void register(AbstractUploadStrategyImpl strategy) {
+        strategies.put(strategy.getMode(), strategy);
+    }
+
+    /**
+     * 获取存储模式对应的策略
+     * @param storage 存储模式，为空时使用 upload.strategy
+     * @return {@link AbstractUploadStrategyImpl}
+     */
+    public AbstractUploadStrategyImpl get(String storage) {
+        String mode = storage != null ? storage : defaultStorage;
+        AbstractUploadStrategyImpl strategy = strategies.get(UploadModeEnum.of(mode));
+        if (strategy == null) {
+            throw new CustomException("存储 " + mode + " 未加载");
+        }
+        return strategy;
+    }
+
+    public String getDefaultStorage() {
+        return defaultStorage;
+    }
+
+    public List<AbstractUploadStrategyImpl> all() {
+        return List.copyOf(strategies.values());
+    }
+}
@@ -0,0 +1,57 @@
+package cn.org.shelly.picporter.strategy;
+
+import cn.org.shelly.picporter.enums.UploadModeEnum;
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.Date;
+
+/**
+ * 存储对象元信息，用于通过服务端读取对象内容
+ * @author shelly
+ */
+@Data
+@Builder
+public class StoredObject {
+
+    /**
+     * 文件唯一标识（md5）
+     */
+    private String identifier;
+
+    /**
+     * 文件的key
+     */
+    private String objectKey;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 对象大小（byte）
+     */
+    private long size;
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+
+    /**
+     * 最后修改时间
+     */
+    private Date lastModified;
+
+    /**
+     * 所在存储
+     */
+    private UploadModeEnum storage;
+
+    /**
+     * 本地文件路径，仅本地存储有值，可用于零拷贝发送
+     */
+    private Path localPath;
+}
@@ -0,0 +1,185 @@
+package cn.org.shelly.picporter.strategy;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.ServiceException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传策略监控指标
+ * <p>
+ * 所有指标均带 strategy 标签（minio/oss/local），由 /actuator/prometheus 暴露：
+ * <ul>
+ *     <li>picporter.upload.operation：策略各方法耗时，按 operation、outcome 区分</li>
+ *     <li>picporter.upload.bytes：每次上传的字节数，按 type（file/part/proxy/batch）区分</li>
+ *     <li>picporter.upload.part / picporter.upload.merge：存储服务分片上传与合并耗时</li>
+ *     <li>picporter.upload.second：秒传命中与未命中次数，result 为 hit/miss</li>
+ *     <li>picporter.transfer.images / picporter.transfer.image.errors：每篇文章的图片数与失败数</li>
+ *     <li>picporter.storage.errors：存储服务异常次数，按 code 区分</li>
+ * </ul>
+ * </p>
+ * @author shelly
+ */
+@Component
+public class UploadMetrics {
+
+    private static final String TAG_STRATEGY = "strategy";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 带检查异常的调用
+     */
+    @FunctionalInterface
+    public interface MeteredCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * 记录一次策略方法调用的耗时，存储服务异常同时计入错误次数
+     * @param strategy 策略
+     * @param operation 方法名
+     * @param call 调用
+     * @return 调用结果
+     */
+    public <T, E extends Exception> T record(String strategy, String operation, MeteredCall<T, E> call) throws E {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            // 策略内部已捕获的异常在抛出处计数，这里只统计直接抛出的存储服务异常
+            if (isStorageException(e)) {
+                storageError(strategy, e);
+            }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("picporter.upload.operation")
+                    .tag(TAG_STRATEGY, strategy)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 记录上传字节数
+     * @param strategy 策略
+     * @param type 上传类型
+     * @param bytes 字节数
+     */
+    public void bytes(String strategy, String type, long bytes) {
+        DistributionSummary.builder("picporter.upload.bytes")
+                .baseUnit("bytes")
+                .tag(TAG_STRATEGY, strategy)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * 记录存储服务分片上传耗时
+     * @param strategy 策略
+     * @param success 是否成功
+     * @param nanos 耗时（纳秒）
+     */
+    public void part(String strategy, boolean success, long nanos) {
+        Timer.builder("picporter.upload.part")
+                .tag(TAG_STRATEGY, strategy)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录存储服务分片合并耗时
+     * @param strategy 策略
+     * @param nanos 耗时（纳秒）
+     */
+    public void merge(String strategy, long nanos) {
+        Timer.builder("picporter.upload.merge")
+                .tag(TAG_STRATEGY, strategy)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录秒传结果
+     * @param strategy 策略
+     * @param hit 是否命中
+     * @param count 次数
+     */
+    public void secondUpload(String strategy, boolean hit, long count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("picporter.upload.second")
+                .tag(TAG_STRATEGY, strategy)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    /**
+     * 记录一篇文章的图片处理结果
+     * @param strategy 策略
+     * @param images 本地图片数
+     * @param errors 上传失败数
+     */
+    public void transfer(String strategy, int images, int errors) {
+        DistributionSummary.builder("picporter.transfer.images")
+                .tag(TAG_STRATEGY, strategy)
+                .register(meterRegistry)
+                .record(images);
+        if (errors > 0) {
+            Counter.builder("picporter.transfer.image.errors")
+                    .tag(TAG_STRATEGY, strategy)
+                    .register(meterRegistry)
+                    .increment(errors);
+        }
+    }
+
+    /**
+     * 记录存储服务异常
+     * @param strategy 策略
+     * @param e 异常
+     */
+    public void storageError(String strategy, Exception e) {
+        Counter.builder("picporter.storage.errors")
+                .tag(TAG_STRATEGY, strategy)
+                .tag("code", errorCode(e))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static boolean isStorageException(Exception e) {
+        return e instanceof AmazonClientException || e instanceof ClientException || e instanceof ServiceException;
+    }
+
+    /**
+     * 提取错误码：S3与OSS的服务端异常使用其错误码，其余使用异常类名
+     */
+    private static String errorCode(Exception e) {
+        String code = null;
+        if (e instanceof AmazonServiceException ase) {
+            code = StringUtils.defaultIfBlank(ase.getErrorCode(), "HTTP" + ase.getStatusCode());
+        } else if (e instanceof ServiceException se) {
+            code = se.getErrorCode();
+        } else if (e instanceof ClientException ce) {
+            code = ce.getErrorCode();
+        }
+        return StringUtils.isNotBlank(code) ? code : e.getClass().getSimpleName();
+    }
+}
@@ -1,13 +1,23 @@
 package cn.org.shelly.picporter.strategy;
 
+import cn.org.shelly.picporter.enums.UploadModeEnum;
 import cn.org.shelly.picporter.model.req.ArticleReq;
 import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
 import cn.org.shelly.picporter.model.req.FileUploadReq;
+import cn.org.shelly.picporter.model.resp.ArticleResp;
+import cn.org.shelly.picporter.model.resp.BatchUploadResp;
 import cn.org.shelly.picporter.model.resp.FileChunkResp;
 import cn.org.shelly.picporter.model.resp.FileInfoResp;
+import cn.org.shelly.picporter.model.resp.PageResp;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface UploadStrategy {
 
@@ -15,19 +25,37 @@ public interface UploadStrategy {
 
     boolean secondUpload(String identifier, String fileName);
 
+    List<BatchUploadResp> batchUpload(List<FileUploadReq> reqs);
+
+    Map<String, Boolean> batchSecondUpload(List<String> identifiers);
+
     void delete(String identifier);
 
     String test();
 
+    UploadModeEnum getMode();
+
     FileChunkResp initFileChunkTask(FileChunkInitTaskReq req);
 
     boolean uploadPart(String identifier, int partNumber, byte[] bytes);
 
+    boolean uploadPart(String identifier, int partNumber, InputStream stream, long size);
+
     String mergeFileChunk(String identifier);
 
+    String proxyUpload(String fileName, String identifier, long size, InputStream stream);
+
     FileChunkResp listFileChunk(String identifier);
 
-    List<FileInfoResp> list(String fileName, Integer pageNum, Integer pageSize);
+    PageResp<FileInfoResp> list(String fileName, Integer pageNum, Integer pageSize, String cursor);
+
+    StoredObject getObject(String identifier);
+
+    StoredObject getObject(String identifier, String derivative);
+
+    void writeObject(StoredObject object, long start, long end, OutputStream out) throws IOException;
+
+    ArticleResp transfer(ArticleReq req);
 
-    String transfer(ArticleReq req);
+    ArticleResp transfer(String title, Reader in, Writer out, Consumer<ArticleResp> beforeWrite) throws IOException;
 }
@@ -1,25 +1,62 @@
 package cn.org.shelly.picporter.strategy.context;
 
+import cn.hutool.core.io.file.FileNameUtil;
+import cn.org.shelly.picporter.config.properties.RoutingProperties;
 import cn.org.shelly.picporter.enums.UploadModeEnum;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.model.po.Chunk;
 import cn.org.shelly.picporter.model.req.ArticleReq;
 import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
 import cn.org.shelly.picporter.model.req.FileUploadReq;
+import cn.org.shelly.picporter.model.resp.ArticleResp;
+import cn.org.shelly.picporter.model.resp.BatchUploadResp;
 import cn.org.shelly.picporter.model.resp.FileChunkResp;
 import cn.org.shelly.picporter.model.resp.FileInfoResp;
+import cn.org.shelly.picporter.model.resp.PageResp;
+import cn.org.shelly.picporter.service.IChunkService;
+import cn.org.shelly.picporter.service.IFileTieringService;
+import cn.org.shelly.picporter.strategy.StoredObject;
+import cn.org.shelly.picporter.strategy.UploadMetrics;
 import cn.org.shelly.picporter.strategy.UploadStrategy;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 上传策略上下文
+ * <p>
+ * 启动时按 upload.strategy 解析当前策略，模式未知或对应策略未加载时启动失败；
+ * 运行时可通过 {@link #switchTo(String)} 切换存储，每次调用只读取一次当前策略，切换前已开始的请求仍由原策略完成，
+ * 分片任务按创建时记录的存储模式路由，切换后未完成的分片上传继续在原存储上传与合并。
+ * </p>
+ * <p>
+ * 新上传的文件按 upload.routing 规则根据大小与扩展名选择存储，未命中规则时使用当前存储；
+ * 读取与删除由当前策略查询文件记录，再按记录中的存储模式委托给文件所在存储
+ * </p>
+ * <p>
+ * 每次调用均通过 {@link UploadMetrics} 记录耗时，并按方法记录上传字节数、秒传命中与文章图片数
+ * </p>
  * @author Shelly
  */
 @Service
+@Slf4j
 public class UploadStrategyContext {
     /**
      * 上传模式
@@ -30,43 +67,324 @@ public class UploadStrategyContext {
     @Autowired
     private Map<String, UploadStrategy> uploadStrategyMap;
 
+    @Autowired
+    private UploadMetrics uploadMetrics;
+
+    @Autowired
+    private IChunkService chunkService;
+
+    @Autowired
+    private IFileTieringService fileTieringService;
+
+    @Autowired
+    private RoutingProperties routingProperties;
+
+    /**
+     * 单次批量上传最多文件数，批次按路由拆分前校验
+     */
+    @Value("${upload.batch.max-files:50}")
+    private int batchMaxFiles;
+
+    /**
+     * 解析后的路由规则
+     */
+    private List<Route> routes;
+
+    /**
+     * 已加载的策略
+     */
+    private Map<UploadModeEnum, UploadStrategy> strategies;
+
+    /**
+     * 当前策略
+     */
+    private volatile UploadStrategy active;
+
+    @PostConstruct
+    public void init() {
+        strategies = new EnumMap<>(UploadModeEnum.class);
+        for (UploadModeEnum mode : UploadModeEnum.values()) {
+            UploadStrategy strategy = uploadStrategyMap.get(mode.getStrategy());
+            if (strategy != null) {
+                strategies.put(mode, strategy);
+            }
+        }
+        UploadModeEnum mode = UploadModeEnum.of(uploadStrategy);
+        active = strategies.get(mode);
+        if (active == null) {
+            throw new IllegalStateException("上传模式 " + uploadStrategy + " 对应的策略 " + mode.getStrategy() + " 未加载");
+        }
+        routes = new ArrayList<>();
+        for (RoutingProperties.Rule rule : routingProperties.getRules()) {
+            UploadStrategy strategy = strategies.get(UploadModeEnum.of(rule.getStorage()));
+            if (strategy == null) {
+                throw new IllegalStateException("路由规则的存储 " + rule.getStorage() + " 未加载，需配置 upload." + rule.getStorage() + ".enabled=true");
+            }
+            Set<String> types = rule.getTypes().stream().map(StringUtils::lowerCase).collect(Collectors.toSet());
+            routes.add(new Route(rule.getMinSize(), rule.getMaxSize(), types, strategy));
+        }
+        log.info("当前上传存储: {}，已加载: {}，路由规则: {}", uploadStrategy, strategies.keySet(), routes.size());
+    }
+
+    /**
+     * 切换当前存储
+     * <p>
+     * 只替换当前策略引用，切换前已开始的请求与未完成的分片任务不受影响
+     * </p>
+     * @param mode 目标模式
+     * @return 切换前的模式
+     */
+    public synchronized UploadModeEnum switchTo(String mode) {
+        UploadModeEnum target;
+        try {
+            target = UploadModeEnum.of(mode);
+        } catch (IllegalArgumentException e) {
+            throw new CustomException(e.getMessage());
+        }
+        UploadStrategy strategy = strategies.get(target);
+        if (strategy == null) {
+            throw new CustomException("上传模式 " + mode + " 未加载，需配置 upload." + mode + ".enabled=true 后重启");
+        }
+        UploadModeEnum previous = active.getMode();
+        active = strategy;
+        log.info("上传存储已切换: {} -> {}", previous.getMode(), target.getMode());
+        return previous;
+    }
+
+    public UploadModeEnum getActiveMode() {
+        return active.getMode();
+    }
+
+    public Set<UploadModeEnum> getAvailableModes() {
+        return strategies.keySet();
+    }
+
     public String executeUploadStrategy(FileUploadReq req) throws IOException {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).uploadFile(req);
+        UploadStrategy strategy = route(req.getFileName(), req.getFile().getSize());
+        String mode = strategy.getMode().getMode();
+        // 写入字节数由策略在实际写入存储后记录，复用已有对象时不计入
+        return uploadMetrics.record(mode, "uploadFile", () -> strategy.uploadFile(req));
     }
 
     public boolean secondUpload(String identifier, String fileName) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).secondUpload(identifier, fileName);
+        UploadStrategy strategy = active;
+        String mode = strategy.getMode().getMode();
+        boolean hit = uploadMetrics.record(mode, "secondUpload", () -> strategy.secondUpload(identifier, fileName));
+        uploadMetrics.secondUpload(mode, hit, 1);
+        return hit;
+    }
+
+    public List<BatchUploadResp> batchUpload(List<FileUploadReq> reqs) {
+        if (reqs.size() > batchMaxFiles) {
+            throw new CustomException("单次最多上传" + batchMaxFiles + "个文件");
+        }
+        // 按路由分组，同一批次的文件可能写入不同存储
+        Map<UploadStrategy, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < reqs.size(); i++) {
+            FileUploadReq req = reqs.get(i);
+            groups.computeIfAbsent(route(req.getFileName(), req.getFile().getSize()), k -> new ArrayList<>()).add(i);
+        }
+        if (groups.size() == 1) {
+            return batchUpload(groups.keySet().iterator().next(), reqs);
+        }
+        BatchUploadResp[] results = new BatchUploadResp[reqs.size()];
+        groups.forEach((strategy, indexes) -> {
+            List<BatchUploadResp> groupResults = batchUpload(strategy, indexes.stream().map(reqs::get).toList());
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = groupResults.get(i);
+            }
+        });
+        return List.of(results);
+    }
+
+    private List<BatchUploadResp> batchUpload(UploadStrategy strategy, List<FileUploadReq> reqs) {
+        String mode = strategy.getMode().getMode();
+        List<BatchUploadResp> results = uploadMetrics.record(mode, "batchUpload", () -> strategy.batchUpload(reqs));
+        for (int i = 0; i < results.size(); i++) {
+            BatchUploadResp result = results.get(i);
+            if (result.isSuccess() && !result.isReused()) {
+                uploadMetrics.bytes(mode, "batch", reqs.get(i).getFile().getSize());
+            }
+        }
+        return results;
+    }
+
+    public Map<String, Boolean> batchSecondUpload(List<String> identifiers) {
+        UploadStrategy strategy = active;
+        String mode = strategy.getMode().getMode();
+        Map<String, Boolean> results = uploadMetrics.record(mode, "batchSecondUpload",
+                () -> strategy.batchSecondUpload(identifiers));
+        long hits = results.values().stream().filter(Boolean.TRUE::equals).count();
+        uploadMetrics.secondUpload(mode, true, hits);
+        uploadMetrics.secondUpload(mode, false, results.size() - hits);
+        return results;
     }
 
     public void delete(String identifier) {
-        uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).delete(identifier);
+        UploadStrategy strategy = active;
+        uploadMetrics.record(strategy.getMode().getMode(), "delete", () -> {
+            strategy.delete(identifier);
+            return null;
+        });
+    }
+
+    public PageResp<FileInfoResp> list(String fileName, Integer pageNum, Integer pageSize, String cursor) {
+        UploadStrategy strategy = active;
+        return uploadMetrics.record(strategy.getMode().getMode(), "list",
+                () -> strategy.list(fileName, pageNum, pageSize, cursor));
     }
 
-    public List<FileInfoResp> list(String fileName, Integer pageNum, Integer pageSize) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).list(fileName, pageNum, pageSize);
+    public StoredObject getObject(String identifier) {
+        return getObject(identifier, null);
+    }
+
+    public StoredObject getObject(String identifier, String derivative) {
+        UploadStrategy strategy = active;
+        StoredObject object = uploadMetrics.record(strategy.getMode().getMode(), "getObject",
+                () -> strategy.getObject(identifier, derivative));
+        fileTieringService.touch(identifier);
+        return object;
+    }
+
+    public void writeObject(StoredObject object, long start, long end, OutputStream out) throws IOException {
+        // 对象可能位于其他存储，按查询时记录的存储读取
+        UploadStrategy strategy = object.getStorage() != null ? strategies.get(object.getStorage()) : active;
+        uploadMetrics.record(strategy.getMode().getMode(), "writeObject", () -> {
+            strategy.writeObject(object, start, end, out);
+            return null;
+        });
     }
 
     public FileChunkResp listFileChunk(String identifier) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).listFileChunk(identifier);
+        UploadStrategy strategy = taskStrategy(identifier);
+        return uploadMetrics.record(strategy.getMode().getMode(), "listFileChunk",
+                () -> strategy.listFileChunk(identifier));
     }
 
     public String mergeFileChunk(String identifier) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).mergeFileChunk(identifier);
+        UploadStrategy strategy = taskStrategy(identifier);
+        return uploadMetrics.record(strategy.getMode().getMode(), "mergeFileChunk",
+                () -> strategy.mergeFileChunk(identifier));
     }
 
     public boolean uploadPart(String identifier, int partNumber, byte[] bytes) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).uploadPart(identifier, partNumber, bytes);
+        UploadStrategy strategy = taskStrategy(identifier);
+        String mode = strategy.getMode().getMode();
+        boolean success = uploadMetrics.record(mode, "uploadPart",
+                () -> strategy.uploadPart(identifier, partNumber, bytes));
+        if (success) {
+            uploadMetrics.bytes(mode, "part", bytes.length);
+        }
+        return success;
+    }
+
+    public boolean uploadPart(String identifier, int partNumber, InputStream stream, long size) {
+        UploadStrategy strategy = taskStrategy(identifier);
+        String mode = strategy.getMode().getMode();
+        boolean success = uploadMetrics.record(mode, "uploadPart",
+                () -> strategy.uploadPart(identifier, partNumber, stream, size));
+        if (success) {
+            uploadMetrics.bytes(mode, "part", size);
+        }
+        return success;
+    }
+
+    public String proxyUpload(String fileName, String identifier, long size, InputStream stream) {
+        UploadStrategy strategy = route(fileName, size);
+        String mode = strategy.getMode().getMode();
+        // 写入字节数由策略在合并完成后记录，内容已存在时不计入
+        return uploadMetrics.record(mode, "proxyUpload",
+                () -> strategy.proxyUpload(fileName, identifier, size, stream));
     }
 
     public FileChunkResp initFileChunkTask(FileChunkInitTaskReq req) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).initFileChunkTask(req);
+        UploadStrategy strategy = route(req.getFileName(), req.getTotalSize());
+        return uploadMetrics.record(strategy.getMode().getMode(), "initFileChunkTask",
+                () -> strategy.initFileChunkTask(req));
     }
 
     public String test() {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).test();
+        return active.test();
     }
 
-    public String transfer(ArticleReq req) {
-        return uploadStrategyMap.get(UploadModeEnum.getStrategy(uploadStrategy)).transfer(req);
+    public ArticleResp transfer(ArticleReq req) {
+        UploadStrategy strategy = active;
+        String mode = strategy.getMode().getMode();
+        ArticleResp resp = uploadMetrics.record(mode, "transfer", () -> strategy.transfer(req));
+        uploadMetrics.transfer(mode, resp.getImageCount(), resp.getErrors().size());
+        return resp;
+    }
+
+    public ArticleResp transfer(String title, Reader in, Writer out, Consumer<ArticleResp> beforeWrite) throws IOException {
+        UploadStrategy strategy = active;
+        String mode = strategy.getMode().getMode();
+        ArticleResp resp = uploadMetrics.record(mode, "transfer", () -> strategy.transfer(title, in, out, beforeWrite));
+        uploadMetrics.transfer(mode, resp.getImageCount(), resp.getErrors().size());
+        return resp;
+    }
+
+    /**
+     * 按路由规则选择新文件的存储，未命中时使用当前存储
+     * @param fileName 文件名
+     * @param size 文件大小
+     * @return {@link UploadStrategy}
+     */
+    private UploadStrategy route(String fileName, long size) {
+        UploadStrategy current = active;
+        if (routes.isEmpty()) {
+            return current;
+        }
+        String type = StringUtils.lowerCase(FileNameUtil.extName(fileName));
+        for (Route route : routes) {
+            if (route.matches(type, size)) {
+                return route.strategy();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 获取分片任务所在存储的策略
+     * <p>
+     * 只加载了一个存储时直接返回当前策略；否则按任务记录的存储模式路由，任务不存在时使用当前策略，
+     * 未记录存储模式（升级前创建）时使用 upload.strategy，与文件记录的处理一致，任务信息由 {@link IChunkService} 缓存
+     * </p>
+     * @param identifier 文件唯一标识
+     * @return {@link UploadStrategy}
+     */
+    private UploadStrategy taskStrategy(String identifier) {
+        UploadStrategy current = active;
+        if (strategies.size() == 1) {
+            return current;
+        }
+        Chunk task = chunkService.getTaskByIdentifier(identifier);
+        if (task == null) {
+            return current;
+        }
+        String storage = task.getStorage() != null ? task.getStorage() : uploadStrategy;
+        if (storage.equals(current.getMode().getMode())) {
+            return current;
+        }
+        UploadStrategy strategy = strategies.get(UploadModeEnum.of(storage));
+        if (strategy == null) {
+            throw new CustomException("分片任务所在存储 " + storage + " 未加载");
+        }
+        return strategy;
+    }
+
+    /**
+     * 路由规则
+     * @param minSize 文件大小下限（包含），为空不限制
+     * @param maxSize 文件大小上限（不包含），为空不限制
+     * @param types 小写扩展名，为空不限制
+     * @param strategy 目标存储
+     */
+    private record Route(Long minSize, Long maxSize, Set<String> types, UploadStrategy strategy) {
+
+        boolean matches(String type, long size) {
+            return (minSize == null || size >= minSize)
+                    && (maxSize == null || size < maxSize)
+                    && (types.isEmpty() || types.contains(type));
+        }
     }
-}
\ No newline at end of file
+}
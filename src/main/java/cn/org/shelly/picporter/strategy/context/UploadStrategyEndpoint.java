@@ -0,0 +1,49 @@
+package cn.org.shelly.picporter.strategy.context;
+
+import cn.org.shelly.picporter.enums.UploadModeEnum;
+import jakarta.annotation.Resource;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上传存储管理端点
+ * <p>
+ * GET /actuator/uploadstrategy 查看当前与已加载的存储；
+ * POST /actuator/uploadstrategy {"mode":"minio"} 切换当前存储，用于在存储之间迁移。
+ * 端点没有鉴权，默认不暴露，需通过 management.server.port 与 management.server.address 限制在内网后再加入暴露列表
+ * </p>
+ * @author shelly
+ */
+@Component
+@Endpoint(id = "uploadstrategy")
+public class UploadStrategyEndpoint {
+
+    @Resource
+    private UploadStrategyContext uploadStrategyContext;
+
+    @ReadOperation
+    public Map<String, Object> current() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("active", uploadStrategyContext.getActiveMode().getMode());
+        result.put("available", modes());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> switchTo(String mode) {
+        UploadModeEnum previous = uploadStrategyContext.switchTo(mode);
+        Map<String, Object> result = current();
+        result.put("previous", previous.getMode());
+        return result;
+    }
+
+    private List<String> modes() {
+        return uploadStrategyContext.getAvailableModes().stream().map(UploadModeEnum::getMode).toList();
+    }
+}
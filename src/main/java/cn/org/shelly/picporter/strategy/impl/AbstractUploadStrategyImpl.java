@@ -1,6 +1,13 @@
 package cn.org.shelly.picporter.strategy.impl;
 
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.io.file.FileNameUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.org.shelly.picporter.config.properties.DerivativeProperties;
+import cn.org.shelly.picporter.config.properties.PartUploadProperties;
+import cn.org.shelly.picporter.enums.UploadModeEnum;
 import cn.org.shelly.picporter.exception.CustomException;
 import cn.org.shelly.picporter.mapper.ChunkMapper;
 import cn.org.shelly.picporter.mapper.FileMapper;
@@ -9,26 +16,77 @@ import cn.org.shelly.picporter.model.po.File;
 import cn.org.shelly.picporter.model.req.ArticleReq;
 import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
 import cn.org.shelly.picporter.model.req.FileUploadReq;
+import cn.org.shelly.picporter.model.resp.ArticleResp;
+import cn.org.shelly.picporter.model.resp.BatchUploadResp;
 import cn.org.shelly.picporter.model.resp.FileChunkResp;
 import cn.org.shelly.picporter.model.resp.FileInfoResp;
+import cn.org.shelly.picporter.model.resp.PageResp;
+import cn.org.shelly.picporter.service.IChunkPartService;
+import cn.org.shelly.picporter.service.IChunkService;
+import cn.org.shelly.picporter.service.IFileService;
+import cn.org.shelly.picporter.service.IIdentifierFilterService;
+import cn.org.shelly.picporter.service.IPresignedUrlService;
+import cn.org.shelly.picporter.strategy.StorageRegistry;
+import cn.org.shelly.picporter.strategy.StoredObject;
+import cn.org.shelly.picporter.strategy.UploadMetrics;
 import cn.org.shelly.picporter.strategy.UploadStrategy;
+import cn.org.shelly.picporter.utils.ArticleImageRewriter;
+import cn.org.shelly.picporter.utils.ImageDerivatives;
+import cn.org.shelly.picporter.utils.SequentialDigest;
 
+import com.amazonaws.services.s3.model.PartSummary;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+import java.util.function.Consumer;
 
 /**
  * 文件上传策略抽象类
@@ -38,18 +96,153 @@ import java.util.regex.Pattern;
 @Service
 public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
 
+    /**
+     * 列表查询单页最大记录数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * MD5十六进制长度
+     */
+    private static final int MD5_HEX_LENGTH = 32;
+
     @Resource
     protected FileMapper fileMapper;
 
     @Resource
     protected ChunkMapper fileChunkMapper;
 
+    @Resource
+    protected IChunkService chunkService;
+
+    @Resource
+    protected IChunkPartService chunkPartService;
+
+    @Resource
+    protected IIdentifierFilterService identifierFilterService;
+
+    @Resource
+    protected IPresignedUrlService presignedUrlService;
+
+    @Resource
+    protected IFileService fileService;
+
+    @Resource
+    protected PartUploadProperties partUploadProperties;
+
+    @Resource
+    protected UploadMetrics uploadMetrics;
+
+    @Resource
+    protected StorageRegistry storageRegistry;
+
+    @Resource
+    protected ExecutorService partUploadExecutor;
+
+    @Resource
+    protected ExecutorService proxyUploadExecutor;
+
+    @Resource
+    protected DerivativeProperties derivativeProperties;
+
+    @Resource
+    protected ExecutorService derivativeExecutor;
+
     @Value("${upload.prefix}")
     protected String prefix;
 
     @Value("${upload.is-stored}")
     protected boolean isStored;
 
+    /**
+     * 是否在服务端校验文件MD5
+     */
+    @Value("${upload.verify-digest:true}")
+    protected boolean verifyDigest;
+
+    /**
+     * 是否为分片返回预签名直传地址
+     */
+    @Value("${upload.presign.enabled:false}")
+    protected boolean presignEnabled;
+
+    /**
+     * 预签名地址有效期（毫秒）
+     */
+    @Value("${upload.presign.expiration:3600000}")
+    protected long presignExpiration;
+
+    /**
+     * 存储桶是否私有，私有桶的列表结果返回预签名访问地址
+     */
+    @Value("${upload.presign.private-bucket:false}")
+    protected boolean privateBucket;
+
+    /**
+     * 批量上传单次最多文件数
+     */
+    @Value("${upload.batch.max-files:50}")
+    protected int batchMaxFiles;
+
+    /**
+     * 批量上传同时上传的最大文件数
+     */
+    @Value("${upload.batch.concurrency:8}")
+    protected int batchConcurrency;
+
+    /**
+     * 单篇文章同时上传的最大图片数
+     */
+    @Value("${upload.article.concurrency:8}")
+    protected int articleConcurrency;
+
+    /**
+     * 文章图片去重缓存容量
+     */
+    @Value("${upload.article.image-cache-capacity:4096}")
+    protected int imageCacheCapacity;
+
+    /**
+     * 文章图片内容MD5到访问地址的缓存
+     */
+    private LRUCache<String, String> imageUrlCache;
+
+    /**
+     * 整文件摘要缓存容量，超出或过期的任务在合并后从存储读回校验
+     */
+    @Value("${upload.digest-cache.capacity:1024}")
+    protected int digestCacheCapacity;
+
+    /**
+     * 整文件摘要缓存过期时间（毫秒），应不短于单个分片任务的上传时长
+     */
+    @Value("${upload.digest-cache.ttl:1800000}")
+    protected long digestCacheTtl;
+
+    /**
+     * 进行中分片任务的整文件摘要
+     */
+    private LRUCache<String, SequentialDigest> fileDigests;
+
+    /**
+     * 是否启用冷热分层，启用后文件会在存储之间迁移，返回给客户端的地址改为经服务读取
+     */
+    @Value("${upload.tiering.enabled:false}")
+    protected boolean tieringEnabled;
+
+    /**
+     * 经服务读取文件的地址前缀，即 /upload/file 接口的完整地址
+     */
+    @Value("${upload.tiering.file-url:}")
+    protected String tieringFileUrl;
+
+    @PostConstruct
+    public void init() {
+        imageUrlCache = new LRUCache<>(imageCacheCapacity);
+        fileDigests = new LRUCache<>(digestCacheCapacity, digestCacheTtl);
+        storageRegistry.register(this);
+    }
+
     /**
      * 简单文件上传
      * @param req 文件上传请求
@@ -57,6 +250,22 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
      */
     @Override
     public String uploadFile(FileUploadReq req) throws IOException {
+        if (verifyDigest) {
+            // 上传的文件已暂存在本地，先校验MD5再写入存储，标识不可信时直接拒绝
+            String md5;
+            try (InputStream in = req.getFile().getInputStream()) {
+                md5 = SecureUtil.md5(in);
+            }
+            if (!md5.equalsIgnoreCase(req.getIdentifier())) {
+                throw new CustomException("文件校验失败，内容与标识不一致");
+            }
+            // 相同内容已存在时直接复用，不重复写入存储
+            File exist = findFile(md5);
+            if (exist != null) {
+                log.info("文件内容已存在，复用对象: {}", exist.getObjectKey());
+                return accessUrl(md5, owner(exist), exist.getObjectKey());
+            }
+        }
         String extName = FileNameUtil.extName(req.getFileName());
         String uuid = UUID.randomUUID().toString().replace("-", "");
         String fileName = uuid + "." + extName;
@@ -65,9 +274,126 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
         if (!uploadSuccess) {
             throw new CustomException("上传失败");
         }
+        uploadMetrics.bytes(getMode().getMode(), "file", req.getFile().getSize());
         // 存储信息至数据库
         saveFile(req, objectName);
-        return getFileAccessUrl(objectName);
+        return accessUrl(req.getIdentifier(), this, objectName);
+    }
+
+    /**
+     * 批量小文件上传
+     * <p>
+     * 先并发计算各文件MD5，再用一次IN查询找出已存在的内容直接复用，其余文件并发上传
+     * （批次内相同内容只上传一次），最后批量写入file表。单个文件失败不影响其他文件
+     * </p>
+     * @param reqs 文件上传请求，identifier为空时以服务端计算的MD5为准
+     * @return 与请求顺序一致的逐项结果
+     */
+    @Override
+    public List<BatchUploadResp> batchUpload(List<FileUploadReq> reqs) {
+        if (reqs.size() > batchMaxFiles) {
+            throw new CustomException("单次最多上传" + batchMaxFiles + "个文件");
+        }
+        List<BatchUploadResp> results = reqs.stream()
+                .map(req -> new BatchUploadResp().setFileName(req.getFileName()).setIdentifier(req.getIdentifier()))
+                .toList();
+        // 计算并校验MD5
+        forEachConcurrently(reqs.size(), i -> {
+            FileUploadReq req = reqs.get(i);
+            if (!verifyDigest && StringUtils.isNotBlank(req.getIdentifier())) {
+                return;
+            }
+            String md5;
+            try (InputStream in = req.getFile().getInputStream()) {
+                md5 = SecureUtil.md5(in);
+            }
+            if (StringUtils.isBlank(req.getIdentifier())) {
+                req.setIdentifier(md5);
+                results.get(i).setIdentifier(md5);
+            } else if (!md5.equalsIgnoreCase(req.getIdentifier())) {
+                results.get(i).setMessage("文件校验失败，内容与标识不一致");
+            }
+        }, results);
+        // 一次查询找出已存在的内容
+        Map<String, Integer> owners = new LinkedHashMap<>();
+        for (int i = 0; i < reqs.size(); i++) {
+            if (results.get(i).getMessage() == null) {
+                owners.putIfAbsent(reqs.get(i).getIdentifier(), i);
+            }
+        }
+        Map<String, File> existing = findFiles(owners.keySet());
+        Map<String, String> objectKeys = new ConcurrentHashMap<>(existing.size());
+        existing.forEach((identifier, file) -> objectKeys.put(identifier, file.getObjectKey()));
+        // 并发上传新内容，批次内相同内容只由第一个文件上传
+        List<Integer> uploads = owners.entrySet().stream()
+                .filter(e -> !objectKeys.containsKey(e.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        List<File> newFiles = Collections.synchronizedList(new ArrayList<>(uploads.size()));
+        forEachConcurrently(uploads.size(), n -> {
+            int i = uploads.get(n);
+            FileUploadReq req = reqs.get(i);
+            String objectName = prefix + "/" + UUID.randomUUID().toString().replace("-", "") + "." + FileNameUtil.extName(req.getFileName());
+            if (!upload(objectName, req.getFile().getInputStream(), req.getFile().getSize(), req.getFile().getContentType())) {
+                results.get(i).setMessage("上传失败");
+                return;
+            }
+            objectKeys.put(req.getIdentifier(), objectName);
+            newFiles.add(buildFileDO(req, objectName));
+        }, uploads.stream().map(results::get).toList());
+        // 批量写入文件记录，saveBatch在同一事务中执行，失败时全部回滚，删除本批已上传的对象
+        if (isStored && !newFiles.isEmpty()) {
+            boolean saved;
+            try {
+                fileService.saveBatch(newFiles);
+                saved = true;
+            } catch (Exception e) {
+                log.error("批量保存文件信息失败", e);
+                saved = false;
+                for (File file : newFiles) {
+                    objectKeys.remove(file.getIdentifier());
+                    if (!removeObject(file.getObjectKey())) {
+                        log.warn("删除未保存记录的对象失败: {}", file.getObjectKey());
+                    }
+                }
+            }
+            if (saved) {
+                newFiles.forEach(this::afterFileSaved);
+            }
+        }
+        for (int i = 0; i < reqs.size(); i++) {
+            BatchUploadResp result = results.get(i);
+            String objectKey = result.getMessage() == null ? objectKeys.get(reqs.get(i).getIdentifier()) : null;
+            if (objectKey != null) {
+                File exist = existing.get(reqs.get(i).getIdentifier());
+                result.setSuccess(true)
+                        .setReused(exist != null)
+                        .setUrl(accessUrl(reqs.get(i).getIdentifier(), exist != null ? owner(exist) : this, objectKey));
+            } else if (result.getMessage() == null) {
+                result.setMessage("上传失败");
+            }
+        }
+        log.info("批量上传完成，文件：{}，复用：{}，上传：{}", reqs.size(), existing.size(), newFiles.size());
+        return results;
+    }
+
+    /**
+     * 批量秒传判断，一次查询返回各标识是否已存在
+     * @param identifiers 标识符列表
+     * @return 标识符到是否存在的映射
+     */
+    @Override
+    public Map<String, Boolean> batchSecondUpload(List<String> identifiers) {
+        if(!isStored){
+            throw new CustomException("未开启数据库功能！");
+        }
+        if (identifiers.size() > batchMaxFiles) {
+            throw new CustomException("单次最多查询" + batchMaxFiles + "个文件");
+        }
+        Set<String> exists = findFiles(identifiers).keySet();
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        identifiers.forEach(identifier -> result.put(identifier, exists.contains(identifier)));
+        return result;
     }
 
     /**
@@ -82,8 +408,11 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
             throw new CustomException("未开启数据库功能！");
         }
         if (StringUtils.isNotBlank(identifier)) {
-            File fileDO = fileMapper.selectOne(new QueryWrapper<File>().eq("identifier",identifier));
-            return fileDO != null;
+            // 布隆过滤器判定不存在时无需查询数据库
+            if (!identifierFilterService.mightExist(identifier)) {
+                return false;
+            }
+            return fileMapper.existsByIdentifier(identifier);
         }
         return false;
     }
@@ -97,17 +426,88 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
         if(!isStored){
             throw new CustomException("未开启数据库功能！");
         }
-        File file = fileMapper.selectOne(new QueryWrapper<File>().eq("identifier", identifier));
+        File file = fileMapper.selectOne(new QueryWrapper<File>()
+                .select("id", "object_key", "derivatives", "storage")
+                .eq("identifier", identifier)
+                .last("LIMIT 1"));
         if (file != null) {
-            // 从存储中删除文件
-           boolean removeSuccess = removeObject(file.getObjectKey());
+            // 从文件所在存储中删除文件
+            AbstractUploadStrategyImpl owner = owner(file);
+           boolean removeSuccess = owner.removeObject(file.getObjectKey());
            if (!removeSuccess) {
                throw new CustomException("删除失败");
            }
+            for (String name : derivativeNames(file)) {
+                String key = derivativeKey(file.getObjectKey(), name);
+                if (!owner.removeObject(key)) {
+                    log.warn("衍生图删除失败: {}", key);
+                }
+                presignedUrlService.evict(key);
+            }
             // 从数据库删除记录
             fileMapper.deleteById(file.getId());
+            chunkService.evictTask(identifier);
+            identifierFilterService.remove(identifier);
+            imageUrlCache.remove(identifier);
+            presignedUrlService.evict(file.getObjectKey());
         }
     }
+    /**
+     * 获取存储对象元信息
+     * @param identifier 标识符
+     * @return {@link StoredObject}
+     */
+    @Override
+    public StoredObject getObject(String identifier) {
+        return getObject(identifier, null);
+    }
+
+    /**
+     * 获取存储对象元信息
+     * @param identifier 标识符
+     * @param derivative 衍生图名称，如 w160.jpg，为空时获取原图
+     * @return {@link StoredObject}
+     */
+    @Override
+    public StoredObject getObject(String identifier, String derivative) {
+        if(!isStored){
+            throw new CustomException("未开启数据库功能！");
+        }
+        File file = fileMapper.selectOne(new QueryWrapper<File>()
+                .select("file_name", "object_key", "derivatives", "storage", "gmt_create")
+                .eq("identifier", identifier)
+                .last("LIMIT 1"));
+        if (file == null) {
+            throw new CustomException("文件不存在");
+        }
+        String objectKey = file.getObjectKey();
+        String fileName = file.getFileName();
+        if (derivative != null) {
+            // 只允许读取已记录的衍生图
+            if (!derivativeNames(file).contains(derivative)) {
+                throw new CustomException("衍生图不存在");
+            }
+            objectKey = derivativeKey(objectKey, derivative);
+            fileName = FileNameUtil.mainName(fileName) + "_" + derivative;
+        }
+        // 以文件所在存储中的实际大小为准，保证Range计算正确
+        AbstractUploadStrategyImpl owner = owner(file);
+        long size = owner.objectLength(objectKey);
+        if (size < 0) {
+            throw new CustomException("文件不存在");
+        }
+        return StoredObject.builder()
+                .identifier(identifier)
+                .objectKey(objectKey)
+                .fileName(fileName)
+                .size(size)
+                .contentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString())
+                .lastModified(file.getGmtCreate())
+                .storage(owner.getMode())
+                .localPath(owner.localPath(objectKey))
+                .build();
+    }
+
     @Override
     public FileChunkResp initFileChunkTask(FileChunkInitTaskReq req) {
         if(!isStored){
@@ -117,49 +517,119 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
         String uuid = UUID.randomUUID().toString().replace("-", "");
         String fileName = uuid + "." + extName;
         String objectName = prefix + "/" + fileName;
+        // 相同内容已存在时无需上传
+        File exist = findFile(req.getIdentifier());
+        if (exist != null) {
+            return new FileChunkResp()
+                    .setIdentifier(req.getIdentifier())
+                    .setFileName(req.getFileName())
+                    .setObjectKey(exist.getObjectKey())
+                    .setTotalSize(req.getTotalSize())
+                    .setFinished(true)
+                    .setExistPartList(new ArrayList<>());
+        }
         Chunk fileChunkDO = createFileChunkDO(req, objectName);
+        fileChunkDO.setStorage(getMode().getMode());
         fileChunkMapper.insert(fileChunkDO);
-        return FileChunkResp.build(fileChunkDO).setFinished(false).setExistPartList(new ArrayList<>());
+        chunkService.cacheTask(fileChunkDO);
+        fileDigests.put(req.getIdentifier(), new SequentialDigest());
+        return FileChunkResp.build(fileChunkDO)
+                .setFinished(false)
+                .setExistPartList(new ArrayList<>())
+                .setPartUploadUrls(presignMissingParts(fileChunkDO, Collections.emptyList()));
     }
+    /**
+     * 分页查询文件列表
+     * <p>
+     * 未传游标时使用页码分页（带总数统计）；传入游标时按 (gmt_create, id) 做游标分页，
+     * 只扫描当前页所需的索引范围，深度翻页耗时不随页码增长
+     * </p>
+     * @param fileName 文件名前缀
+     * @param pageNum 页码
+     * @param pageSize 每页记录数
+     * @param cursor 游标，格式为 创建时间毫秒_文件id
+     * @return {@link PageResp} 分页结果
+     */
     @Override
-    public List<FileInfoResp> list(String fileName, Integer pageNum, Integer pageSize) {
+    public PageResp<FileInfoResp> list(String fileName, Integer pageNum, Integer pageSize, String cursor) {
         if(!isStored){
             throw new CustomException("未开启数据库功能！");
         }
-        // 构建查询条件
-        QueryWrapper<File> queryWrapper = new QueryWrapper<>();
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        // 构建查询条件，只查询列表需要的列
+        QueryWrapper<File> queryWrapper = new QueryWrapper<File>()
+                .select("id", "identifier", "file_name", "file_size", "file_suffix", "object_key", "derivatives", "storage", "gmt_create");
         if (StringUtils.isNotBlank(fileName)) {
-            queryWrapper.like("file_name", fileName);
+            // 前缀匹配，可使用file_name索引
+            queryWrapper.likeRight("file_name", fileName);
+        }
+        PageResp<FileInfoResp> resp = new PageResp<FileInfoResp>().setPageSize(size);
+        List<File> files;
+        if (StringUtils.isNotBlank(cursor)) {
+            String[] parts = cursor.split("_");
+            if (parts.length != 2 || !StringUtils.isNumeric(parts[0]) || !StringUtils.isNumeric(parts[1])) {
+                throw new CustomException("游标格式错误");
+            }
+            Date cursorTime = new Date(Long.parseLong(parts[0]));
+            long cursorId = Long.parseLong(parts[1]);
+            queryWrapper.and(w -> w.lt("gmt_create", cursorTime)
+                            .or(o -> o.eq("gmt_create", cursorTime).lt("id", cursorId)))
+                    .orderByDesc("gmt_create", "id")
+                    .last("LIMIT " + size);
+            files = fileMapper.selectList(queryWrapper);
+        } else {
+            // 按创建时间倒序排列
+            queryWrapper.orderByDesc("gmt_create", "id");
+            Page<File> page = fileMapper.selectPage(new Page<>(Math.max(pageNum, 1), size), queryWrapper);
+            files = page.getRecords();
+            resp.setTotal(page.getTotal()).setPageNum((int) page.getCurrent());
+        }
+        if (files.size() == size) {
+            File last = files.get(files.size() - 1);
+            resp.setNextCursor(last.getGmtCreate().getTime() + "_" + last.getId());
         }
-        // 按创建时间倒序排列
-        queryWrapper.orderByDesc("gmt_create");
-
-        // 查询文件列表
-        List<File> files = fileMapper.selectList(queryWrapper);
         // 转换为resp对象
-        return files.stream().map(file -> {
-            FileInfoResp resp = new FileInfoResp();
-            resp.setIdentifier(file.getIdentifier());
-            resp.setFileName(file.getFileName());
-            resp.setFileSize(file.getFileSize());
-            resp.setContentType(file.getFileSuffix());
-            resp.setUrl(getFileAccessUrl(file.getObjectKey()));
+        return resp.setRecords(files.stream().map(file -> {
+            FileInfoResp info = new FileInfoResp();
+            info.setIdentifier(file.getIdentifier());
+            info.setFileName(file.getFileName());
+            info.setFileSize(file.getFileSize());
+            info.setContentType(file.getFileSuffix());
+            // 地址由文件所在存储生成
+            AbstractUploadStrategyImpl owner = owner(file);
+            info.setUrl(readUrl(file.getIdentifier(), null, owner, file.getObjectKey()));
+            Map<String, String> derivatives = new LinkedHashMap<>();
+            for (String name : derivativeNames(file)) {
+                derivatives.put(FileNameUtil.mainName(name), readUrl(file.getIdentifier(), name, owner, derivativeKey(file.getObjectKey(), name)));
+            }
+            info.setDerivatives(derivatives);
             // 转换时间格式
-            resp.setUploadTime(file.getGmtCreate().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-            return resp;
-        }).toList();
+            info.setUploadTime(file.getGmtCreate().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
+            return info;
+        }).toList());
     }
+    /**
+     * 上传分片（字节数组）
+     * <p>
+     * 兼容旧调用方式，内部转为流式上传
+     * </p>
+     */
     @Override
     public boolean uploadPart(String identifier, int partNumber, byte[] file) {
+        return uploadPart(identifier, partNumber, new ByteArrayInputStream(file), file.length);
+    }
+
+    @Override
+    public boolean uploadPart(String identifier, int partNumber, InputStream stream, long size) {
         if(!isStored){
             throw new CustomException("未开启数据库功能！");
         }
         // 检查分片上传任务是否存在
-        Chunk fileChunkDO = fileChunkMapper.selectOne(new QueryWrapper<Chunk>().eq("identifier", identifier));
+        Chunk fileChunkDO = chunkService.getTaskByIdentifier(identifier);
         if (fileChunkDO == null) {
             throw new CustomException("任务不存在");
         }
-        return uploadPart(fileChunkDO, partNumber, file);
+        return uploadAndRecordPart(fileChunkDO, partNumber, stream, size, true);
     }
 
     @Override
@@ -168,84 +638,273 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
             throw new CustomException("未开启数据库功能！");
         }
         // 检查分片上传任务是否存在
-        Chunk fileChunkDO = fileChunkMapper.selectOne(new QueryWrapper<Chunk>().eq("identifier", identifier));
+        Chunk fileChunkDO = chunkService.getTaskByIdentifier(identifier);
         if (fileChunkDO == null) {
             throw new CustomException("任务不存在");
         }
-        return merge(fileChunkDO);
+        List<PartSummary> parts = resolveParts(fileChunkDO);
+        String url = completeMerge(fileChunkDO, parts);
+        // 合并完成后任务记录已删除，同步清理分片记录并失效缓存
+        chunkPartService.removeParts(fileChunkDO);
+        chunkService.evictTask(identifier);
+        fileDigests.remove(identifier);
+        return url;
     }
+    /**
+     * 服务端代理分片上传
+     * <p>
+     * 一次性接收整个文件流，在服务端按固定大小拆分为分片并发上传，全部完成后合并。
+     * 同一文件最多占用 concurrency 个分片缓冲，缓冲用尽时读取线程阻塞等待，形成背压。
+     * 文件流的实际大小必须与声明大小一致；任一环节失败时中止存储服务的分片上传并删除分片任务，可直接重试。
+     * </p>
+     * @param fileName 文件名
+     * @param identifier 文件唯一标识
+     * @param size 文件大小
+     * @param stream 文件流
+     * @return {@link String} 文件url
+     */
+    @Override
+    public String proxyUpload(String fileName, String identifier, long size, InputStream stream) {
+        try {
+            return doProxyUpload(fileName, identifier, size, stream);
+        } finally {
+            // 提前返回或失败时同样释放请求流
+            IoUtil.close(stream);
+        }
+    }
+
+    private String doProxyUpload(String fileName, String identifier, long size, InputStream stream) {
+        if(!isStored){
+            throw new CustomException("未开启数据库功能！");
+        }
+        if (fileChunkMapper.exists(new QueryWrapper<Chunk>().eq("identifier", identifier))) {
+            throw new CustomException("该文件已存在分片上传任务");
+        }
+        File exist = findFile(identifier);
+        if (exist != null) {
+            return accessUrl(identifier, owner(exist), exist.getObjectKey());
+        }
+        String extName = FileNameUtil.extName(fileName);
+        String uuid = UUID.randomUUID().toString().replace("-", "");
+        String objectName = prefix + "/" + uuid + "." + extName;
+        FileChunkInitTaskReq req = new FileChunkInitTaskReq()
+                .setFileName(fileName)
+                .setIdentifier(identifier)
+                .setTotalSize(size)
+                .setChunkSize(partUploadProperties.getPartSize());
+        Chunk fileChunkDO = createFileChunkDO(req, objectName);
+        fileChunkDO.setStorage(getMode().getMode());
+        fileChunkMapper.insert(fileChunkDO);
+        chunkService.cacheTask(fileChunkDO);
+        SequentialDigest digest = new SequentialDigest();
+        fileDigests.put(identifier, digest);
+        String url;
+        try {
+            uploadPartsConcurrently(fileChunkDO, stream, digest);
+            List<PartSummary> parts = resolveParts(fileChunkDO);
+            url = completeMerge(fileChunkDO, parts);
+        } catch (RuntimeException e) {
+            // 合并校验失败时任务已被清理
+            if (chunkService.getTaskByIdentifier(identifier) != null) {
+                abortTask(fileChunkDO);
+            }
+            throw e;
+        }
+        chunkPartService.removeParts(fileChunkDO);
+        chunkService.evictTask(identifier);
+        fileDigests.remove(identifier);
+        uploadMetrics.bytes(getMode().getMode(), "proxy", size);
+        return url;
+    }
+
+    /**
+     * 放弃分片任务：中止存储服务的分片上传，删除分片任务与分片记录
+     * @param fileChunkDO 分片任务
+     */
+    private void abortTask(Chunk fileChunkDO) {
+        if (!abortMultipart(fileChunkDO)) {
+            log.warn("中止分片上传失败，需依赖存储服务的生命周期规则清理: {}", fileChunkDO.getUploadId());
+        }
+        removeTask(fileChunkDO);
+    }
+
+    /**
+     * 删除分片任务与分片记录
+     * @param fileChunkDO 分片任务
+     */
+    private void removeTask(Chunk fileChunkDO) {
+        chunkPartService.removeParts(fileChunkDO);
+        fileChunkMapper.deleteById(fileChunkDO.getId());
+        chunkService.evictTask(fileChunkDO.getIdentifier());
+        fileDigests.remove(fileChunkDO.getIdentifier());
+    }
+
     @Override
     public FileChunkResp listFileChunk(String identifier) {
         if(!isStored){
             throw new CustomException("未开启数据库功能！");
         }
-        Chunk task = fileChunkMapper.selectOne(new QueryWrapper<Chunk>().eq("identifier", identifier));
+        Chunk task = chunkService.getTaskByIdentifier(identifier);
         if (task == null) {
             throw new CustomException("上传任务不存在");
         }
-        return listChunks(task);
+        // 直接读取本地分片记录，不再请求存储服务；直传模式下分片不经过服务（也不经过摘要计算），需与存储服务校正
+        List<PartSummary> parts = presignEnabled ? syncParts(task) : chunkPartService.listParts(task);
+        return FileChunkResp.build(task)
+                .setExistPartList(parts)
+                .setFinished(parts.size() == task.getChunkNum())
+                .setPartUploadUrls(presignMissingParts(task, parts));
     }
+    /**
+     * 文章图片替换
+     * <p>
+     * 分三个阶段：先提取文章中全部本地图片路径并去重，再在线程池中并发上传，最后一次遍历完成链接替换。
+     * 单张图片上传失败时保留原链接并记录失败原因，不影响其他图片
+     * </p>
+     * @param req 文章请求
+     * @return {@link ArticleResp} 替换结果
+     */
     @Override
-    public String transfer(ArticleReq req) {
+    public ArticleResp transfer(ArticleReq req) {
         String content = req.getContent();
-        Pattern htmlImgPattern = Pattern.compile("<img\\b[^>]*src\\s*=\\s*(['\"])(.*?)\\1[^>]*>", Pattern.CASE_INSENSITIVE);
-        Matcher htmlMatcher = htmlImgPattern.matcher(content);
-        StringBuilder htmlBuffer = new StringBuilder();
-        while (htmlMatcher.find()) {
-            String original = htmlMatcher.group(0);
-            String quote = htmlMatcher.group(1);
-            String src = htmlMatcher.group(2);
-
-            if (!isWebPath(src)) {
-                String uploadedUrl = uploadLocalImage(src);
-                if (uploadedUrl != null) {
-                    String replaced = original.replace("src=" + quote + src + quote, "src=" + quote + uploadedUrl + quote);
-                    htmlMatcher.appendReplacement(htmlBuffer, Matcher.quoteReplacement(replaced));
-                }
+        long start = System.currentTimeMillis();
+        // 提取本地图片路径
+        Set<String> localPaths = localImagePaths(ArticleImageRewriter.collect(content));
+        long collected = System.currentTimeMillis();
+        // 并发上传
+        ArticleResp resp = new ArticleResp();
+        Map<String, String> uploaded = uploadLocalImages(localPaths, resp);
+        long uploadedAt = System.currentTimeMillis();
+        // 替换链接
+        String rewritten = ArticleImageRewriter.rewrite(content, uploaded::get);
+        long end = System.currentTimeMillis();
+        resp.setContent(rewritten)
+                .setCollectCost(collected - start)
+                .setUploadCost(uploadedAt - collected)
+                .setRewriteCost(end - uploadedAt);
+        logTransfer(req.getTitle(), resp);
+        return resp;
+    }
+
+    /**
+     * 流式文章图片替换
+     * <p>
+     * 适用于大文章：请求内容先落盘到临时文件，依次流式完成提取、上传与改写，内存占用与文章大小无关。
+     * 上传阶段结束、开始写出改写内容之前回调 beforeWrite，便于调用方写入响应头
+     * </p>
+     * @param title 文章标题
+     * @param in 文章输入
+     * @param out 改写后的输出
+     * @param beforeWrite 写出前回调，参数中content为null
+     * @return {@link ArticleResp} 替换结果，content为null
+     */
+    @Override
+    public ArticleResp transfer(String title, Reader in, Writer out, Consumer<ArticleResp> beforeWrite) throws IOException {
+        Path spool = Files.createTempFile("article-", ".tmp");
+        try {
+            long start = System.currentTimeMillis();
+            try (Reader reader = in; Writer writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+            Set<String> localPaths;
+            try (Reader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+                localPaths = localImagePaths(ArticleImageRewriter.collect(reader));
             }
+            long collected = System.currentTimeMillis();
+            ArticleResp resp = new ArticleResp();
+            Map<String, String> uploaded = uploadLocalImages(localPaths, resp);
+            long uploadedAt = System.currentTimeMillis();
+            resp.setCollectCost(collected - start).setUploadCost(uploadedAt - collected);
+            beforeWrite.accept(resp);
+            try (Reader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+                ArticleImageRewriter.rewrite(reader, out, uploaded::get);
+            }
+            resp.setRewriteCost(System.currentTimeMillis() - uploadedAt);
+            logTransfer(title, resp);
+            return resp;
+        } finally {
+            Files.deleteIfExists(spool);
         }
-        htmlMatcher.appendTail(htmlBuffer);
-        content = htmlBuffer.toString();
-        // Markdown 图片
-        Pattern mdImgPattern = Pattern.compile("!\\[[^\\]]*\\]\\((.*?)\\)");
-        Matcher mdMatcher = mdImgPattern.matcher(content);
-        StringBuilder mdBuffer = new StringBuilder();
-        while (mdMatcher.find()) {
-            String path = mdMatcher.group(1);
-            if (!isWebPath(path)) {
-                String uploadedUrl = uploadLocalImage(path);
-                if (uploadedUrl != null) {
-                    String replaced = mdMatcher.group(0).replace(path, uploadedUrl);
-                    mdMatcher.appendReplacement(mdBuffer, Matcher.quoteReplacement(replaced));
-                }
+    }
+
+    /**
+     * 过滤出本地图片路径
+     */
+    private static Set<String> localImagePaths(Set<String> paths) {
+        paths.removeIf(AbstractUploadStrategyImpl::isWebPath);
+        return paths;
+    }
+
+    /**
+     * 并发上传本地图片，失败信息写入resp
+     * @param localPaths 本地图片路径
+     * @param resp 替换结果
+     * @return 本地路径到访问url的映射
+     */
+    private Map<String, String> uploadLocalImages(Set<String> localPaths, ArticleResp resp) {
+        Map<String, String> uploaded = new ConcurrentHashMap<>(localPaths.size());
+        List<ArticleResp.ImageError> errors = Collections.synchronizedList(new ArrayList<>());
+        Semaphore permits = new Semaphore(articleConcurrency);
+        List<Future<?>> futures = new ArrayList<>(localPaths.size());
+        try {
+            for (String path : localPaths) {
+                permits.acquire();
+                futures.add(partUploadExecutor.submit(() -> {
+                    try {
+                        uploaded.put(path, uploadLocalImage(path));
+                    } catch (Exception e) {
+                        errors.add(new ArticleResp.ImageError(path, e.getMessage()));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new CustomException("文章图片上传被中断");
+        } catch (ExecutionException e) {
+            log.error("文章图片上传失败", e);
+            throw new CustomException("文章图片上传失败");
         }
-        mdMatcher.appendTail(mdBuffer);
-        return mdBuffer.toString();
+        resp.setImageCount(localPaths.size())
+                .setUploadedCount(uploaded.size())
+                .setErrors(errors);
+        return uploaded;
+    }
+
+    private static void logTransfer(String title, ArticleResp resp) {
+        log.info("文章图片替换完成，标题：{}，图片：{}，成功：{}，失败：{}，耗时：提取{}ms 上传{}ms 替换{}ms",
+                title, resp.getImageCount(), resp.getUploadedCount(), resp.getErrors().size(),
+                resp.getCollectCost(), resp.getUploadCost(), resp.getRewriteCost());
     }
 
     /**
-     * 列出文件分片
+     * 从存储服务列出文件分片，仅在本地分片记录不完整时用于校正
      * @param task 文件分片信息
      * @return {@link FileChunkResp} 文件分片信息
      */
     protected abstract FileChunkResp listChunks(Chunk task);
 
     /**
-     * 合并文件分片
+     * 合并文件分片，完成存储服务中的对象，失败时抛出异常
      * @param fileChunkDO 文件分片信息
-     * @return {@link String} 文件url
+     * @param parts 已上传的分片列表
      */
-    protected abstract String merge(Chunk fileChunkDO);
+    protected abstract void merge(Chunk fileChunkDO, List<PartSummary> parts);
 
     /**
      * 上传分片
      * @param fileChunkDO 文件分片信息
      * @param partNumber 分片编号
-     * @param file 文件
-     * @return boolean
+     * @param stream 分片数据流
+     * @param size 分片大小
+     * @return {@link String} 分片ETag，上传失败返回null
      */
-    protected abstract boolean uploadPart(Chunk fileChunkDO, int partNumber, byte[] file);
+    protected abstract String uploadPart(Chunk fileChunkDO, int partNumber, InputStream stream, long size);
 
     /**
      * 上传文件
@@ -271,12 +930,200 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
      */
     public abstract boolean removeObject(String objectKey);
 
+    /**
+     * 中止分片上传，丢弃已上传的分片
+     * @param fileChunkDO 分片任务
+     * @return 是否成功
+     */
+    protected abstract boolean abortMultipart(Chunk fileChunkDO);
+
+    /**
+     * 生成分片的预签名上传地址，客户端可直接PUT到存储服务
+     * @param fileChunkDO 分片任务
+     * @param partNumber 分片编号
+     * @param expiration 过期时间
+     * @return {@link String} 预签名地址，存储不支持时返回null
+     */
+    protected String presignPart(Chunk fileChunkDO, int partNumber, Date expiration) {
+        return null;
+    }
+
+    /**
+     * 生成对象的预签名下载地址
+     * @param objectKey 对象键
+     * @param expiration 过期时间
+     * @return {@link String} 预签名地址，存储不支持时返回null
+     */
+    protected String presignGet(String objectKey, Date expiration) {
+        return null;
+    }
+
+    /**
+     * 获取对象的读取地址，私有桶返回缓存的预签名地址
+     * @param objectKey 对象键
+     * @return {@link String} 文件url
+     */
+    protected String getReadUrl(String objectKey) {
+        if (!privateBucket) {
+            return getFileAccessUrl(objectKey);
+        }
+        String url = presignedUrlService.getUrl(objectKey, expiration -> presignGet(objectKey, expiration));
+        return url != null ? url : getFileAccessUrl(objectKey);
+    }
+
+    /**
+     * 返回给客户端的文件地址
+     * <p>
+     * 启用冷热分层时文件会迁移到其他存储，存储地址随之失效，改为返回经服务读取的固定地址，
+     * 由服务按 file.storage 路由并记录读取时间
+     * </p>
+     * @param identifier 文件唯一标识，为空时只能返回存储地址
+     * @param owner 文件所在存储
+     * @param objectKey 对象键
+     * @return {@link String} 文件url
+     */
+    private String accessUrl(String identifier, AbstractUploadStrategyImpl owner, String objectKey) {
+        String url = serviceUrl(identifier, null);
+        return url != null ? url : owner.getFileAccessUrl(objectKey);
+    }
+
+    /**
+     * 列表中的读取地址，未启用冷热分层时私有桶返回预签名地址
+     * @param derivative 衍生图名称，为空表示原图
+     */
+    private String readUrl(String identifier, String derivative, AbstractUploadStrategyImpl owner, String objectKey) {
+        String url = serviceUrl(identifier, derivative);
+        return url != null ? url : owner.getReadUrl(objectKey);
+    }
+
+    /**
+     * 经服务读取的地址，未启用冷热分层时返回null
+     */
+    private String serviceUrl(String identifier, String derivative) {
+        if (!tieringEnabled || !isStored || StringUtils.isBlank(identifier)) {
+            return null;
+        }
+        String url = StringUtils.removeEnd(tieringFileUrl, "/") + "/" + identifier;
+        return derivative == null ? url : url + "?derivative=" + derivative;
+    }
+
+    /**
+     * 获取对象大小
+     * @param objectKey 对象键
+     * @return 对象大小（byte），不存在返回-1
+     */
+    protected abstract long objectLength(String objectKey);
+
+    /**
+     * 获取对象的本地文件路径，非本地存储返回null
+     * @param objectKey 对象键
+     * @return {@link Path}
+     */
+    protected Path localPath(String objectKey) {
+        return null;
+    }
+
+    /**
+     * 将对象指定区间的内容写出
+     * @param object 存储对象
+     * @param start 起始位置（包含）
+     * @param end 结束位置（包含）
+     * @param out 输出流
+     */
+    @Override
+    public abstract void writeObject(StoredObject object, long start, long end, OutputStream out) throws IOException;
+
     /**
      * 测试
      * @return {@link String}
      */
     public abstract String test();
 
+    /**
+     * 获取存储模式，用作监控指标的strategy标签
+     * @return {@link UploadModeEnum}
+     */
+    @Override
+    public abstract UploadModeEnum getMode();
+
+    /**
+     * 获取文件所在存储的策略
+     * <p>
+     * 存储模式随文件记录一起查询，不在当前存储时委托给对应存储，无需额外查询
+     * </p>
+     * @param file 文件信息，需包含storage列
+     * @return {@link AbstractUploadStrategyImpl}
+     */
+    protected AbstractUploadStrategyImpl owner(File file) {
+        return getMode().getMode().equals(file.getStorage()) ? this : storageRegistry.get(file.getStorage());
+    }
+
+    /**
+     * 将对象复制到另一存储，用于冷热分层迁移
+     * <p>
+     * 非本地存储先下载到临时文件再上传，保证上传时长度已知
+     * </p>
+     * @param objectKey 对象键
+     * @param target 目标存储
+     * @param wrap 包装上传的读取流，用于限速
+     * @return 复制的字节数，对象不存在时返回-1
+     */
+    public long copyTo(String objectKey, AbstractUploadStrategyImpl target, UnaryOperator<InputStream> wrap) throws IOException {
+        long size = objectLength(objectKey);
+        if (size < 0) {
+            return -1;
+        }
+        Path source = localPath(objectKey);
+        Path temp = null;
+        try {
+            if (source == null) {
+                temp = Files.createTempFile("picporter-tiering-", ".tmp");
+                if (size > 0) {
+                    try (OutputStream out = Files.newOutputStream(temp)) {
+                        writeObject(StoredObject.builder().objectKey(objectKey).size(size).build(), 0, size - 1, out);
+                    }
+                }
+                source = temp;
+            }
+            String type = MediaTypeFactory.getMediaType(objectKey).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            try (InputStream in = wrap.apply(Files.newInputStream(source))) {
+                if (!target.upload(objectKey, in, size, type)) {
+                    throw new CustomException("复制失败: " + objectKey);
+                }
+            }
+            return size;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * 文件迁移到其他存储后失效本存储缓存的访问地址
+     * @param identifier 文件唯一标识
+     */
+    public void evictFile(String identifier) {
+        imageUrlCache.remove(identifier);
+    }
+
+    /**
+     * 衍生图对象键列表
+     * @param file 文件信息，需包含object_key与derivatives列
+     * @return 衍生图对象键
+     */
+    public static List<String> derivativeKeys(File file) {
+        return derivativeNames(file).stream().map(name -> derivativeKey(file.getObjectKey(), name)).toList();
+    }
+
+    /**
+     * 记录存储服务异常，供各实现在捕获异常处调用
+     * @param e 异常
+     */
+    protected void storageError(Exception e) {
+        uploadMetrics.storageError(getMode().getMode(), e);
+    }
+
 
     /**
      * 创建文件分片信息
@@ -291,29 +1138,523 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
         if(!isStored){
             return;
         }
-        String extName = FileNameUtil.extName(req.getFileName());
-        // 构建文件数据对象，包含文件名、大小、后缀等基本信息
-        File fileDO = File.builder()
+        File fileDO = buildFileDO(req, o);
+        // 插入数据库
+        fileMapper.insert(fileDO);
+        afterFileSaved(fileDO);
+        log.info("文件信息保存成功");
+    }
+
+    /**
+     * 构建文件数据对象，包含文件名、大小、后缀、所在存储等基本信息
+     */
+    private File buildFileDO(FileUploadReq req, String o) {
+        return File.builder()
+                .storage(getMode().getMode())
                 .fileName(req.getFileName())
                 .fileSize(req.getFile() != null ? req.getFile().getSize() : req.getSize())
-                .fileSuffix(extName)
+                .fileSuffix(FileNameUtil.extName(req.getFileName()))
                 .objectKey(o)
                 .identifier(req.getIdentifier())
                 .build();
-        // 插入数据库
-        fileMapper.insert(fileDO);
-        log.info("文件信息保存成功");
+    }
+
+    /**
+     * 文件记录写入后更新布隆过滤器，图片提交衍生图生成
+     */
+    private void afterFileSaved(File fileDO) {
+        identifierFilterService.add(fileDO.getIdentifier());
+        if (derivativeProperties.isEnabled() && ImageDerivatives.isReadable(fileDO.getFileSuffix())) {
+            submitDerivatives(fileDO);
+        }
+    }
+
+    /**
+     * 提交衍生图生成任务，队列满时放弃生成，不影响上传结果
+     * @param fileDO 文件信息
+     */
+    private void submitDerivatives(File fileDO) {
+        try {
+            derivativeExecutor.execute(() -> generateDerivatives(fileDO));
+        } catch (RejectedExecutionException e) {
+            log.warn("衍生图队列已满，跳过: {}", fileDO.getObjectKey());
+        }
+    }
+
+    /**
+     * 从存储读取原图，生成各尺寸衍生图并存放在原图旁，完成后记录到file表
+     * @param fileDO 文件信息
+     */
+    private void generateDerivatives(File fileDO) {
+        String objectKey = fileDO.getObjectKey();
+        try {
+            long size = objectLength(objectKey);
+            if (size <= 0 || size > derivativeProperties.getMaxSourceSize()) {
+                return;
+            }
+            ByteArrayOutputStream source = new ByteArrayOutputStream((int) size);
+            writeObject(StoredObject.builder().objectKey(objectKey).size(size).build(), 0, size - 1, source);
+            BufferedImage image = ImageDerivatives.read(source.toByteArray(), derivativeProperties.getMaxPixels());
+            if (image == null) {
+                log.info("图片无法解码或尺寸超限，跳过衍生图: {}", objectKey);
+                return;
+            }
+            String format = ImageDerivatives.resolveFormat(derivativeProperties.getFormat(), image.getColorModel().hasAlpha());
+            List<String> names = new ArrayList<>();
+            for (Integer width : new TreeSet<>(derivativeProperties.getWidths())) {
+                // 原图不大于该宽度时直接使用原图
+                if (width < image.getWidth()) {
+                    uploadDerivative(objectKey, "w" + width + "." + format, ImageDerivatives.resize(image, width), format, names);
+                }
+            }
+            if (derivativeProperties.isReencodeOriginal()) {
+                uploadDerivative(objectKey, "full." + format, image, format, names);
+            }
+            if (!names.isEmpty()) {
+                fileMapper.update(null, new UpdateWrapper<File>()
+                        .set("derivatives", String.join(",", names))
+                        .eq("id", fileDO.getId()));
+            }
+            log.info("衍生图生成完成: {}, {}", objectKey, names);
+        } catch (Exception e) {
+            log.error("衍生图生成失败: {}", objectKey, e);
+        }
+    }
+
+    private void uploadDerivative(String objectKey, String name, BufferedImage image, String format, List<String> names) throws IOException {
+        byte[] data = ImageDerivatives.encode(image, format, derivativeProperties.getQuality());
+        if (upload(derivativeKey(objectKey, name), new ByteArrayInputStream(data), data.length, ImageDerivatives.contentType(format))) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * 衍生图对象键，与原图位于同一目录，如 article/abc.png 的 w160.jpg 为 article/abc_w160.jpg
+     */
+    private static String derivativeKey(String objectKey, String name) {
+        int dot = objectKey.lastIndexOf('.');
+        int slash = objectKey.lastIndexOf('/');
+        String base = dot > slash ? objectKey.substring(0, dot) : objectKey;
+        return base + "_" + name;
+    }
+
+    /**
+     * 衍生图名称列表
+     */
+    private static List<String> derivativeNames(File file) {
+        return StringUtils.isBlank(file.getDerivatives()) ? Collections.emptyList() : List.of(file.getDerivatives().split(","));
+    }
+
+    /**
+     * 上传分片并记录到本地分片记录
+     * <p>
+     * 上传时边传边计算分片MD5并与存储服务返回的ETag比对；分片按顺序到达时同时推进整文件摘要
+     * </p>
+     * @param trackFileDigest 是否由本方法推进整文件摘要
+     */
+    private boolean uploadAndRecordPart(Chunk fileChunkDO, int partNumber, InputStream stream, long size, boolean trackFileDigest) {
+        MessageDigest partDigest = SecureUtil.md5().getDigest();
+        InputStream in = new DigestInputStream(stream, partDigest);
+        SequentialDigest fileDigest = trackFileDigest ? fileDigests.get(fileChunkDO.getIdentifier()) : null;
+        MessageDigest forked = null;
+        if (fileDigest != null && fileDigest.isNext(partNumber)) {
+            forked = fileDigest.fork();
+            in = new DigestInputStream(in, forked);
+        }
+        long start = System.nanoTime();
+        String etag = uploadPart(fileChunkDO, partNumber, in, size);
+        uploadMetrics.part(getMode().getMode(), etag != null, System.nanoTime() - start);
+        if (etag == null) {
+            return false;
+        }
+        String partMd5 = HexUtil.encodeHexStr(partDigest.digest());
+        String plainEtag = StringUtils.strip(etag, "\"");
+        // 普通分片的ETag即为分片MD5，不一致说明传输过程中数据损坏
+        if (plainEtag.length() == MD5_HEX_LENGTH && !plainEtag.equalsIgnoreCase(partMd5)) {
+            log.error("分片校验失败, identifier={}, partNumber={}, md5={}, etag={}", fileChunkDO.getIdentifier(), partNumber, partMd5, etag);
+            return false;
+        }
+        if (forked != null) {
+            fileDigest.advance(partNumber, forked);
+        }
+        chunkPartService.recordPart(fileChunkDO, partNumber, etag, size);
+        return true;
+    }
+
+    /**
+     * 合并分片、校验内容并写入文件记录
+     * <p>
+     * 合并前未能得到完整的整文件摘要时（分片乱序上传、服务重启、摘要缓存淘汰、预签名直传），
+     * 合并后从存储读回对象计算MD5，与标识不一致时删除对象与分片任务并拒绝，保证按标识去重时不会返回错误的文件
+     * </p>
+     * @return {@link String} 文件url
+     */
+    private String completeMerge(Chunk fileChunkDO, List<PartSummary> parts) {
+        boolean verified = verifyFileDigest(fileChunkDO);
+        long start = System.nanoTime();
+        try {
+            merge(fileChunkDO, parts);
+        } finally {
+            uploadMetrics.merge(getMode().getMode(), System.nanoTime() - start);
+        }
+        long fileSize = parts.stream().mapToLong(PartSummary::getSize).sum();
+        if (!verified) {
+            verifyMergedObject(fileChunkDO, fileSize);
+        }
+        // 存储文件信息到数据库
+        saveFile(FileUploadReq.builder()
+                .fileName(fileChunkDO.getFileName())
+                .identifier(fileChunkDO.getIdentifier())
+                .size(fileSize)
+                .build(), fileChunkDO.getObjectKey());
+        // 删除分片上传记录
+        fileChunkMapper.deleteById(fileChunkDO.getId());
+        String url = accessUrl(fileChunkDO.getIdentifier(), this, fileChunkDO.getObjectKey());
+        log.info("文件地址：{}", url);
+        return url;
+    }
+
+    /**
+     * 合并前校验整文件MD5与标识是否一致，不一致时中止分片上传并删除分片任务
+     * @return 是否已完成校验（或无需校验），摘要不完整时返回false，需在合并后读回校验
+     */
+    private boolean verifyFileDigest(Chunk fileChunkDO) {
+        if (!verifyDigest) {
+            return true;
+        }
+        SequentialDigest digest = fileDigests.get(fileChunkDO.getIdentifier());
+        if (digest == null || !digest.isComplete(fileChunkDO.getChunkNum())) {
+            return false;
+        }
+        String md5 = digest.hex();
+        if (!md5.equalsIgnoreCase(fileChunkDO.getIdentifier())) {
+            log.error("合并前校验失败, identifier={}, md5={}", fileChunkDO.getIdentifier(), md5);
+            abortTask(fileChunkDO);
+            throw new CustomException("文件校验失败，内容与标识不一致");
+        }
+        return true;
+    }
+
+    /**
+     * 从存储读回合并后的对象校验MD5，不一致或无法读取时删除对象与分片任务
+     */
+    private void verifyMergedObject(Chunk fileChunkDO, long size) {
+        String md5;
+        try {
+            md5 = objectMd5(fileChunkDO.getObjectKey(), size);
+        } catch (Exception e) {
+            log.error("读取合并后的对象失败: {}", fileChunkDO.getObjectKey(), e);
+            md5 = null;
+        }
+        if (!fileChunkDO.getIdentifier().equalsIgnoreCase(md5)) {
+            log.error("合并后校验失败, identifier={}, md5={}", fileChunkDO.getIdentifier(), md5);
+            removeObject(fileChunkDO.getObjectKey());
+            removeTask(fileChunkDO);
+            throw new CustomException(md5 == null ? "文件校验失败，无法读取合并后的文件" : "文件校验失败，内容与标识不一致");
+        }
+    }
+
+    /**
+     * 计算存储中对象的MD5，本地存储直接读取文件
+     */
+    private String objectMd5(String objectKey, long size) throws IOException {
+        Path local = localPath(objectKey);
+        if (local != null) {
+            return SecureUtil.md5(local.toFile());
+        }
+        MessageDigest md5 = SecureUtil.md5().getDigest();
+        if (size > 0) {
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), md5)) {
+                writeObject(StoredObject.builder().objectKey(objectKey).size(size).build(), 0, size - 1, out);
+            }
+        }
+        return HexUtil.encodeHexStr(md5.digest());
+    }
+
+    /**
+     * 根据文件标识查找已存储对象
+     * @param identifier 文件唯一标识
+     * @return {@link File} 对象键与所在存储，不存在时返回null
+     */
+    protected File findFile(String identifier) {
+        if (!isStored || StringUtils.isBlank(identifier) || !identifierFilterService.mightExist(identifier)) {
+            return null;
+        }
+        return fileMapper.selectOne(new QueryWrapper<File>()
+                .select("object_key", "storage")
+                .eq("identifier", identifier)
+                .last("LIMIT 1"));
+    }
+
+    /**
+     * 批量查找已存储对象，布隆过滤器排除后剩余的标识使用一次IN查询
+     * @param identifiers 文件唯一标识
+     * @return 已存在的标识到对象键与所在存储的映射
+     */
+    protected Map<String, File> findFiles(Collection<String> identifiers) {
+        if (!isStored) {
+            return Collections.emptyMap();
+        }
+        List<String> candidates = identifiers.stream()
+                .filter(StringUtils::isNotBlank)
+                .filter(identifierFilterService::mightExist)
+                .distinct()
+                .toList();
+        if (candidates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, File> files = new HashMap<>(candidates.size());
+        fileMapper.selectList(new QueryWrapper<File>()
+                        .select("identifier", "object_key", "storage")
+                        .in("identifier", candidates))
+                .forEach(file -> files.putIfAbsent(file.getIdentifier(), file));
+        return files;
+    }
+
+    /**
+     * 在线程池中并发执行任务，单个任务的异常记录到对应的结果中
+     * @param count 任务数
+     * @param task 任务，参数为任务下标
+     * @param results 与任务下标对应的结果
+     */
+    private void forEachConcurrently(int count, IndexedTask task, List<BatchUploadResp> results) {
+        Semaphore permits = new Semaphore(batchConcurrency);
+        List<Future<?>> futures = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                permits.acquire();
+                futures.add(partUploadExecutor.submit(() -> {
+                    try {
+                        task.run(index);
+                    } catch (Exception e) {
+                        log.warn("批量上传单项失败: {}", e.getMessage());
+                        results.get(index).setMessage(e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new CustomException("批量上传被中断");
+        } catch (ExecutionException e) {
+            log.error("批量上传失败", e);
+            throw new CustomException("批量上传失败");
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * 获取合并所需的分片列表
+     * <p>
+     * 优先使用本地分片记录；记录不完整时（如记录写入失败或历史任务）回退到存储服务的ListParts并回写校正
+     * </p>
+     */
+    private List<PartSummary> resolveParts(Chunk fileChunkDO) {
+        List<PartSummary> parts = syncParts(fileChunkDO);
+        if (parts.size() != fileChunkDO.getChunkNum()) {
+            throw new CustomException("分片未全部上传");
+        }
+        return parts;
+    }
+
+    /**
+     * 读取本地分片记录，不完整时使用存储服务的ListParts回写校正
+     */
+    private List<PartSummary> syncParts(Chunk fileChunkDO) {
+        List<PartSummary> parts = chunkPartService.listParts(fileChunkDO);
+        if (parts.size() != fileChunkDO.getChunkNum()) {
+            List<PartSummary> remoteParts = listChunks(fileChunkDO).getExistPartList();
+            if (remoteParts != null && remoteParts.size() > parts.size()) {
+                log.info("分片记录不完整，使用存储服务分片列表校正: {}", fileChunkDO.getIdentifier());
+                chunkPartService.reconcile(fileChunkDO, remoteParts);
+                parts = remoteParts;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * 为未上传的分片生成预签名直传地址
+     * <p>
+     * 直传的分片不经过服务，不计入整文件摘要，合并时由 {@link #completeMerge} 从存储读回对象校验MD5
+     * </p>
+     * @param fileChunkDO 分片任务
+     * @param parts 已上传的分片
+     * @return 分片编号到直传地址的映射，未开启或存储不支持时返回null
+     */
+    private Map<Integer, String> presignMissingParts(Chunk fileChunkDO, List<PartSummary> parts) {
+        if (!presignEnabled) {
+            return null;
+        }
+        Set<Integer> uploaded = new HashSet<>();
+        parts.forEach(part -> uploaded.add(part.getPartNumber()));
+        Date expiration = new Date(System.currentTimeMillis() + presignExpiration);
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int partNumber = 1; partNumber <= fileChunkDO.getChunkNum(); partNumber++) {
+            if (uploaded.contains(partNumber)) {
+                continue;
+            }
+            String url = presignPart(fileChunkDO, partNumber, expiration);
+            if (url == null) {
+                return null;
+            }
+            urls.put(partNumber, url);
+        }
+        return urls;
+    }
+
+    /**
+     * 顺序读取文件流并将分片提交到代理上传专用线程池并发上传
+     * <p>
+     * 每个分片按声明大小精确读取，非末尾分片读取不足、文件流超出声明大小或线程池已满时失败。
+     * 失败时等待已提交的分片结束后再返回，避免之后清理分片任务时仍有分片在写入
+     * </p>
+     * @param fileChunkDO 分片任务
+     * @param stream 文件流
+     */
+    private void uploadPartsConcurrently(Chunk fileChunkDO, InputStream stream, SequentialDigest digest) {
+        int partSize = Math.toIntExact(fileChunkDO.getChunkSize());
+        int maxBuffers = Math.min(partUploadProperties.getConcurrency(), fileChunkDO.getChunkNum());
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(maxBuffers);
+        int allocated = 0;
+        List<Future<Boolean>> futures = new ArrayList<>(fileChunkDO.getChunkNum());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        try (InputStream in = stream) {
+            for (int partNumber = 1; partNumber <= fileChunkDO.getChunkNum(); partNumber++) {
+                // 缓冲未分配满时新建，否则等待已完成分片归还缓冲
+                byte[] buffer = buffers.poll();
+                if (buffer == null) {
+                    if (allocated < maxBuffers) {
+                        buffer = new byte[partSize];
+                        allocated++;
+                    } else {
+                        buffer = buffers.take();
+                    }
+                }
+                // 已有分片失败时不再继续读取
+                if (failed.get()) {
+                    throw new CustomException("分片上传失败");
+                }
+                int expected = (int) Math.min(partSize, fileChunkDO.getTotalSize() - (long) (partNumber - 1) * partSize);
+                int length = in.readNBytes(buffer, 0, expected);
+                if (length < expected) {
+                    throw new CustomException("文件实际大小小于声明大小");
+                }
+                // 读取线程按顺序计算整文件摘要
+                digest.update(buffer, 0, length);
+                digest.nextPart();
+                int currentPart = partNumber;
+                byte[] currentBuffer = buffer;
+                Future<Boolean> submitted;
+                try {
+                    submitted = proxyUploadExecutor.submit(() -> {
+                        try {
+                            if (failed.get()) {
+                                return false;
+                            }
+                            boolean success = uploadAndRecordPart(fileChunkDO, currentPart, new ByteArrayInputStream(currentBuffer, 0, length), length, false);
+                            if (!success) {
+                                failed.set(true);
+                            }
+                            return success;
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        } finally {
+                            buffers.offer(currentBuffer);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    buffers.offer(currentBuffer);
+                    throw new CustomException("服务端分片上传繁忙，请稍后重试");
+                }
+                futures.add(submitted);
+            }
+            if (in.read() != -1) {
+                throw new CustomException("文件实际大小大于声明大小");
+            }
+            for (Future<Boolean> future : futures) {
+                if (!Boolean.TRUE.equals(future.get())) {
+                    throw new CustomException("分片上传失败");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new CustomException("分片上传被中断");
+        } catch (ExecutionException | IOException e) {
+            failed.set(true);
+            awaitQuietly(futures);
+            log.error("分片上传失败: {}", fileChunkDO.getIdentifier(), e);
+            throw new CustomException("分片上传失败");
+        } catch (CustomException e) {
+            failed.set(true);
+            awaitQuietly(futures);
+            throw e;
+        }
+    }
+
+    /**
+     * 等待已提交的分片结束，忽略其结果
+     */
+    private static void awaitQuietly(List<Future<Boolean>> futures) {
+        for (Future<Boolean> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return;
+            } catch (ExecutionException | CancellationException ignored) {
+                // 失败原因已由首个失败的分片记录
+            }
+        }
     }
 
     private static boolean isWebPath(String path) {
         if (path == null) return false;
         return path.startsWith("http://") || path.startsWith("https://") || path.startsWith("ftp://");
     }
+    /**
+     * 上传本地图片
+     * <p>
+     * 按图片内容MD5去重：先查本地缓存，再查file表，均不存在时才上传并写入file表。
+     * 同一内容并发上传时只有一个线程实际上传，其余线程等待其结果
+     * </p>
+     * @param localPath 本地路径
+     * @return {@link String} 图片访问url
+     */
     private String uploadLocalImage(String localPath) {
         java.io.File file = new java.io.File(localPath);
         if (!file.exists()) {
             throw new CustomException("文件不存在: " + localPath);
         }
+        String md5 = SecureUtil.md5(file);
+        return imageUrlCache.get(md5, true, () -> {
+            File exist = findFile(md5);
+            return exist != null
+                    ? accessUrl(md5, owner(exist), exist.getObjectKey())
+                    : accessUrl(md5, this, uploadImageFile(file, md5));
+        });
+    }
+
+    /**
+     * 上传图片文件并记录到file表
+     * @param file 本地文件
+     * @param md5 文件MD5
+     * @return {@link String} 对象键
+     */
+    private String uploadImageFile(java.io.File file, String md5) {
         try (InputStream inputStream = new FileInputStream(file)) {
             String fileName = file.getName();
             String extName = FileNameUtil.extName(fileName);
@@ -327,12 +1668,17 @@ public abstract class AbstractUploadStrategyImpl implements UploadStrategy {
             if (!uploadSuccess) {
                 throw new CustomException("上传失败: " + fileName);
             }
-            return getFileAccessUrl(objectName);
+            // 记录到file表，后续文章引用相同图片时直接复用
+            saveFile(FileUploadReq.builder()
+                    .fileName(fileName)
+                    .identifier(md5)
+                    .size(fileSize)
+                    .build(), objectName);
+            return objectName;
         } catch (IOException e) {
-            log.error("上传失败: " + localPath, e);
-            throw new CustomException("上传失败: " + localPath);
+            log.error("上传失败: " + file.getPath(), e);
+            throw new CustomException("上传失败: " + file.getPath());
         }
-
     }
 
 }
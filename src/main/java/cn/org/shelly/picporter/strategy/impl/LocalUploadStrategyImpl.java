@@ -0,0 +1,308 @@
+package cn.org.shelly.picporter.strategy.impl;
+
+import cn.hutool.core.io.IoUtil;
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import cn.org.shelly.picporter.enums.UploadModeEnum;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.model.po.Chunk;
+import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
+import cn.org.shelly.picporter.model.resp.FileChunkResp;
+import cn.org.shelly.picporter.strategy.StoredObject;
+import com.amazonaws.services.s3.model.PartSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 本地存储上传策略
+ * <p>
+ * 文件写入使用 {@link FileChannel#transferFrom}，源为本地文件时由内核直接拷贝；
+ * 分片上传预先在存储根目录之外创建与总大小相同的稀疏文件，各分片按偏移量直接写入，全部完成后原子重命名为目标文件，无需额外合并拷贝，
+ * 未完成的分片不会经由静态资源映射被访问到；
+ * 下载时使用 {@link FileChannel#transferTo}，容器支持时直接交由 sendfile 发送
+ * </p>
+ * @author shelly
+ */
+@ConditionalOnExpression("'${upload.strategy}' == 'local' or ${upload.local.enabled:false}")
+@Service("localUploadStrategyImpl")
+@Slf4j
+public class LocalUploadStrategyImpl extends AbstractUploadStrategyImpl {
+
+    /**
+     * 分片上传临时文件后缀
+     */
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * 本地存储桶名
+     */
+    private static final String BUCKET_NAME = "local";
+
+    @Resource
+    private LocalProperties localProperties;
+
+    private Path root;
+
+    /**
+     * 分片上传临时文件目录，位于对外访问的存储根目录之外
+     */
+    private Path partRoot;
+
+    @PostConstruct
+    public void initRoot() throws IOException {
+        root = Paths.get(localProperties.getPath()).toAbsolutePath().normalize();
+        partRoot = StringUtils.isBlank(localProperties.getPartPath())
+                ? root.resolveSibling(root.getFileName() + ".parts")
+                : Paths.get(localProperties.getPartPath()).toAbsolutePath().normalize();
+        if (partRoot.startsWith(root)) {
+            throw new IllegalStateException("upload.local.part-path 不能位于存储根目录 " + root + " 之内");
+        }
+        Files.createDirectories(root);
+        Files.createDirectories(partRoot);
+        log.info("本地存储目录: {}，分片临时目录: {}", root, partRoot);
+    }
+
+    @Override
+    protected FileChunkResp listChunks(Chunk task) {
+        // 本地存储没有远端分片状态，分片台账即为全部已写入的分片
+        FileChunkResp result = FileChunkResp.build(task);
+        if (!Files.exists(resolve(task.getObjectKey()))) {
+            List<PartSummary> parts = chunkPartService.listParts(task);
+            result.setExistPartList(parts);
+            result.setFinished(parts.size() == task.getChunkNum());
+        }
+        return result;
+    }
+
+    @Override
+    protected void merge(Chunk fileChunkDO, List<PartSummary> parts) {
+        long fileSize = parts.stream().mapToLong(PartSummary::getSize).sum();
+        Path partFile = partFile(fileChunkDO.getUploadId());
+        Path target = resolve(fileChunkDO.getObjectKey());
+        try {
+            if (Files.size(partFile) != fileSize) {
+                throw new CustomException("分片合并失败，文件大小不一致");
+            }
+            // 分片已按偏移写入同一文件，落盘后直接原子重命名
+            try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            storageError(e);
+            log.error("分片合并失败: {}", e.getMessage(), e);
+            throw new CustomException("分片合并失败");
+        }
+    }
+
+    @Override
+    protected String uploadPart(Chunk fileChunkDO, int partNumber, InputStream stream, long size) {
+        long position = (partNumber - 1) * fileChunkDO.getChunkSize();
+        if (position + size > fileChunkDO.getTotalSize()) {
+            log.error("分片越界, partNumber={}, size={}", partNumber, size);
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(partFile(fileChunkDO.getUploadId()), StandardOpenOption.WRITE)) {
+            // 多个分片可并发写入同一文件的不同区间
+            long written = transfer(stream, channel, position, size);
+            if (written != size) {
+                log.error("分片数据不完整, partNumber={}, expected={}, actual={}", partNumber, size, written);
+                return null;
+            }
+            log.info("分片上传成功, partNumber={}", partNumber);
+            return partNumber + "-" + size;
+        } catch (Exception e) {
+            storageError(e);
+            log.error("分片上传失败, partNumber={}, error={}", partNumber, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean upload(String path, InputStream stream, long size, String type) {
+        Path target = resolve(path);
+        Path tmp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            // 先写入同目录临时文件，完成后原子重命名，读者不会看到写了一半的文件
+            tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long written = transfer(stream, channel, 0, size);
+                if (written != size) {
+                    log.error("上传文件数据不完整, expected={}, actual={}", size, written);
+                    return false;
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+            return true;
+        } catch (Exception e) {
+            storageError(e);
+            log.error("上传文件异常: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            IoUtil.close(stream);
+            deleteQuietly(tmp);
+        }
+    }
+
+    @Override
+    public String getFileAccessUrl(String filePath) {
+        return localProperties.getUrl() + "/" + filePath;
+    }
+
+    @Override
+    public boolean removeObject(String objectKey) {
+        try {
+            Files.deleteIfExists(resolve(objectKey));
+            return true;
+        } catch (Exception e) {
+            storageError(e);
+            log.error("删除对象异常: {}", e.getMessage(), e);
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean abortMultipart(Chunk fileChunkDO) {
+        try {
+            Files.deleteIfExists(partFile(fileChunkDO.getUploadId()));
+            return true;
+        } catch (Exception e) {
+            storageError(e);
+            log.error("中止分片上传异常: {}", e.getMessage(), e);
+        }
+        return false;
+    }
+
+    @Override
+    protected long objectLength(String objectKey) {
+        try {
+            return Files.size(resolve(objectKey));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    protected Path localPath(String objectKey) {
+        return resolve(objectKey);
+    }
+
+    @Override
+    public void writeObject(StoredObject object, long start, long end, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(object.getObjectKey()), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    @Override
+    public String test() {
+        return "Hello, Local";
+    }
+
+    @Override
+    public UploadModeEnum getMode() {
+        return UploadModeEnum.LOCAL;
+    }
+
+    @Override
+    public Chunk createFileChunkDO(FileChunkInitTaskReq req, String objectName) {
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        // 预分配稀疏文件，各分片按偏移写入
+        try (RandomAccessFile file = new RandomAccessFile(partFile(uploadId).toFile(), "rw")) {
+            file.setLength(req.getTotalSize());
+        } catch (IOException e) {
+            storageError(e);
+            log.error("初始化分片上传任务异常: {}", e.getMessage(), e);
+            throw new CustomException("初始化分片上传任务失败");
+        }
+        int chunkNum = (int) Math.ceil(req.getTotalSize() * 1.0 / req.getChunkSize());
+        return Chunk.builder()
+                .identifier(req.getIdentifier())
+                .uploadId(uploadId)
+                .fileName(req.getFileName())
+                .bucketName(BUCKET_NAME)
+                .objectKey(objectName)
+                .totalSize(req.getTotalSize())
+                .chunkSize(req.getChunkSize())
+                .chunkNum(chunkNum).build();
+    }
+
+    /**
+     * 获取对象在本地的存储路径
+     * @param objectKey 对象键
+     * @return {@link Path}
+     */
+    public Path resolve(String objectKey) {
+        Path path = root.resolve(objectKey).normalize();
+        if (!path.startsWith(root)) {
+            throw new CustomException("非法的对象路径");
+        }
+        return path;
+    }
+
+    private Path partFile(String uploadId) {
+        return partRoot.resolve(uploadId + PART_SUFFIX);
+    }
+
+    /**
+     * 将输入流写入文件指定位置，源为本地文件时走 FileChannel 之间的零拷贝
+     * @return 实际写入的字节数
+     */
+    private static long transfer(InputStream stream, FileChannel target, long position, long size) throws IOException {
+        ReadableByteChannel source = stream instanceof FileInputStream fis ? fis.getChannel() : Channels.newChannel(stream);
+        long written = 0;
+        while (written < size) {
+            long n = target.transferFrom(source, position + written, size - written);
+            if (n <= 0) {
+                break;
+            }
+            written += n;
+        }
+        return written;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", path);
+        }
+    }
+}
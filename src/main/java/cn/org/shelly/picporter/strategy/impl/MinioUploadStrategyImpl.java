@@ -1,30 +1,43 @@
 package cn.org.shelly.picporter.strategy.impl;
 
+import cn.hutool.core.io.IoUtil;
 import cn.org.shelly.picporter.config.properties.MinioProperties;
+import cn.org.shelly.picporter.enums.UploadModeEnum;
 import cn.org.shelly.picporter.exception.CustomException;
 import cn.org.shelly.picporter.model.po.Chunk;
 import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
-import cn.org.shelly.picporter.model.req.FileUploadReq;
 import cn.org.shelly.picporter.model.resp.FileChunkResp;
+import cn.org.shelly.picporter.strategy.StoredObject;
+import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
  * Minio上传策略
  * @author Shelly
  */
-@ConditionalOnProperty(prefix = "upload", name = "strategy", havingValue = "minio")
+@ConditionalOnExpression("'${upload.strategy}' == 'minio' or ${upload.minio.enabled:false}")
 @Service("minioUploadStrategyImpl")
 @Slf4j
 public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
+    /**
+     * 分片上传时SDK用于重试的最大标记缓冲（字节）
+     */
+    private static final int PART_READ_LIMIT = 128 * 1024 + 1;
+
     @Resource
     private MinioProperties minioProperties;
 
@@ -38,7 +51,7 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
         boolean objectExist = isObjectExist(task.getObjectKey());
         //不存在，则获取已上传的分片列表
         if (!objectExist) {
-            List<PartSummary> parts = listMultipart(task.getObjectKey(), task.getUploadId()).getParts();
+            List<PartSummary> parts = listMultipart(task.getObjectKey(), task.getUploadId());
             result.setExistPartList(parts);
             result.setFinished(parts.size() == task.getChunkNum());
         }
@@ -46,60 +59,39 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
     }
 
     @Override
-    protected String merge(Chunk fileChunkDO) {
-        // 检查所有分片是否已上传
-        ListPartsRequest req = new ListPartsRequest(fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), fileChunkDO.getUploadId());
-        PartListing partListing = amazonS3Client.listParts(req);
-        List<PartSummary> parts = partListing.getParts();
-        if (parts.size() != fileChunkDO.getChunkNum()) {
-            throw new CustomException("分片未全部上传");
-        }
-        // 计算文件实际大小
-        long fileSize = parts.stream().mapToLong(PartSummary::getSize).sum();
+    protected void merge(Chunk fileChunkDO, List<PartSummary> parts) {
         // 合并文件
         CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), fileChunkDO.getUploadId(),
                 parts.stream()
                         .map(partSummary -> new PartETag(partSummary.getPartNumber(), partSummary.getETag()))
                         .toList());
-        CompleteMultipartUploadResult result =  amazonS3Client.completeMultipartUpload(request);
-        // 判断是否成功，然后存储信息到数据库
-        if (result.getETag() != null) {
-            FileUploadReq fileUploadReq = FileUploadReq.builder()
-                    .fileName(fileChunkDO.getFileName())
-                    .identifier(fileChunkDO.getIdentifier())
-                    .size(fileSize)
-                    .file(null)
-                    .build();
-            // 存储文件信息到数据库
-            saveFile(fileUploadReq, fileChunkDO.getObjectKey());
-            // 删除分片上传记录
-            fileChunkMapper.deleteById(fileChunkDO.getId());
-            String s = MinioProperties.URL + "/" + fileChunkDO.getBucketName() + "/" + fileChunkDO.getObjectKey();
-            log.info("文件地址：{}", s);
-            return s;
-        } else {
+        CompleteMultipartUploadResult result = amazonS3Client.completeMultipartUpload(request);
+        if (result.getETag() == null) {
             throw new CustomException("分片合并失败");
         }
     }
 
     @Override
-    protected boolean uploadPart(Chunk fileChunkDO, int partNumber, byte[] file) {
+    protected String uploadPart(Chunk fileChunkDO, int partNumber, InputStream stream, long size) {
         try {
-            // 使用AmazonS3原生API上传分片
+            // 使用AmazonS3原生API上传分片，数据直接从请求流写入，不在堆中整体缓存
             UploadPartRequest uploadPartRequest = new UploadPartRequest()
                     .withBucketName(fileChunkDO.getBucketName())
                     .withKey(fileChunkDO.getObjectKey())
                     .withUploadId(fileChunkDO.getUploadId())
                     .withPartNumber(partNumber)
-                    .withPartSize(file.length)
-                    .withInputStream(new java.io.ByteArrayInputStream(file));
+                    .withPartSize(size)
+                    .withInputStream(stream);
+            // 限制SDK为重试而做的标记缓冲大小
+            uploadPartRequest.getRequestClientOptions().setReadLimit(PART_READ_LIMIT);
             // 执行上传并获取结果
             PartETag partETag = amazonS3Client.uploadPart(uploadPartRequest).getPartETag();
             log.info("分片上传成功, partNumber={}, etag={}", partNumber, partETag.getETag());
-            return true;
+            return partETag.getETag();
         } catch (Exception e) {
+            storageError(e);
             log.error("分片上传失败, partNumber={}, error={}",  partNumber, e.getMessage(), e);
-            return false;
+            return null;
         }
     }
 
@@ -112,6 +104,7 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
             amazonS3Client.putObject(minioProperties.bucketName, path, in, metadata);
             return true;
         } catch (Exception e) {
+            storageError(e);
             log.error("上传文件异常: {}", e.getMessage(), e);
         }
         return false;
@@ -128,16 +121,72 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
             amazonS3Client.deleteObject(minioProperties.bucketName, objectKey);
             return true;
         } catch (Exception e) {
+            storageError(e);
             log.error("删除对象异常: {}", e.getMessage(), e);
         }
         return false;
     }
 
+    @Override
+    protected boolean abortMultipart(Chunk fileChunkDO) {
+        try {
+            amazonS3Client.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), fileChunkDO.getUploadId()));
+            return true;
+        } catch (Exception e) {
+            storageError(e);
+            log.error("中止分片上传异常: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    protected String presignPart(Chunk fileChunkDO, int partNumber, Date expiration) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), HttpMethod.PUT)
+                .withExpiration(expiration);
+        request.addRequestParameter("uploadId", fileChunkDO.getUploadId());
+        request.addRequestParameter("partNumber", String.valueOf(partNumber));
+        return amazonS3Client.generatePresignedUrl(request).toString();
+    }
+
+    @Override
+    protected String presignGet(String objectKey, Date expiration) {
+        return amazonS3Client.generatePresignedUrl(minioProperties.bucketName, objectKey, expiration, HttpMethod.GET).toString();
+    }
+
+    @Override
+    protected long objectLength(String objectKey) {
+        try {
+            return amazonS3Client.getObjectMetadata(minioProperties.bucketName, objectKey).getContentLength();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeObject(StoredObject object, long start, long end, OutputStream out) throws IOException {
+        // Range透传给存储，只拉取需要的区间
+        GetObjectRequest request = new GetObjectRequest(minioProperties.bucketName, object.getObjectKey())
+                .withRange(start, end);
+        try (S3Object s3Object = amazonS3Client.getObject(request);
+             InputStream in = s3Object.getObjectContent()) {
+            IoUtil.copy(in, out);
+        }
+    }
+
     @Override
     public String test() {
         return "Hello, Minio";
     }
 
+    @Override
+    public UploadModeEnum getMode() {
+        return UploadModeEnum.MINIO;
+    }
+
     @Override
     public Chunk createFileChunkDO(FileChunkInitTaskReq req, String objectName) {
         // 根据文件名（后缀）获取文件类型
@@ -161,14 +210,24 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
                 .chunkNum(chunkNum).build();
     }
 
-    public PartListing listMultipart(String objectKey, String uploadId) {
+    /**
+     * 列出分片上传任务的全部已上传分片（ListParts单次最多返回1000条，需要翻页）
+     */
+    public List<PartSummary> listMultipart(String objectKey, String uploadId) {
+        List<PartSummary> parts = new ArrayList<>();
         try {
             ListPartsRequest request = new ListPartsRequest(minioProperties.bucketName, objectKey, uploadId);
-            return amazonS3Client.listParts(request);
+            PartListing partListing;
+            do {
+                partListing = amazonS3Client.listParts(request);
+                parts.addAll(partListing.getParts());
+                request.setPartNumberMarker(partListing.getNextPartNumberMarker());
+            } while (partListing.isTruncated());
         } catch (Exception e) {
+            storageError(e);
             log.error("列出分片异常: {}", e.getMessage(), e);
         }
-        return null;
+        return parts;
     }
 
 
@@ -176,6 +235,7 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
         try {
             return amazonS3Client.doesObjectExist(minioProperties.bucketName, objectKey);
         } catch (Exception e) {
+            storageError(e);
             log.error("检查对象存在异常: {}", e.getMessage(), e);
             return false;
         }
@@ -187,6 +247,7 @@ public class MinioUploadStrategyImpl extends AbstractUploadStrategyImpl{
                     metadata);
             return amazonS3Client.initiateMultipartUpload(initReq);
         } catch (Exception e) {
+            storageError(e);
             log.error("初始化分片上传任务异常: {}", e.getMessage(), e);
         }
         return null;
@@ -1,19 +1,31 @@
 package cn.org.shelly.picporter.strategy.impl;
 
+import cn.hutool.core.io.IoUtil;
 import cn.org.shelly.picporter.config.properties.OssProperties;
-import cn.org.shelly.picporter.constants.CodeEnum;
+import cn.org.shelly.picporter.enums.UploadModeEnum;
 import cn.org.shelly.picporter.exception.CustomException;
 import cn.org.shelly.picporter.model.po.Chunk;
 import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
 import cn.org.shelly.picporter.model.resp.FileChunkResp;
+import cn.org.shelly.picporter.strategy.StoredObject;
 import com.aliyun.oss.ClientException;
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
-import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.*;
+import com.amazonaws.services.s3.model.PartSummary;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 /**
  * OSS上传策略实现
@@ -22,41 +34,85 @@ import java.io.InputStream;
 @Slf4j
 @Service("ossUploadStrategyImpl")
 public class OSSUploadStrategyImpl extends AbstractUploadStrategyImpl {
+    /**
+     * ListParts单页最大分片数
+     */
+    private static final int MAX_PARTS_PER_PAGE = 1000;
+
     @Resource
     private OssProperties ossProperties;
+
+    @Resource
+    private OSS ossClient;
+
     @Override
     protected FileChunkResp listChunks(Chunk task) {
-        throw new CustomException(CodeEnum.SYSTEM_UNSUPPORTED_FUNCTION);
+        FileChunkResp result = FileChunkResp.build(task);
+        boolean objectExist = isObjectExist(task.getObjectKey());
+        //不存在，则获取已上传的分片列表
+        if (!objectExist) {
+            List<PartSummary> parts = listAllParts(task).stream()
+                    .map(OSSUploadStrategyImpl::toPartSummary)
+                    .toList();
+            result.setExistPartList(parts);
+            result.setFinished(parts.size() == task.getChunkNum());
+        }
+        return result;
     }
 
     @Override
-    protected String merge(Chunk fileChunkDO) {
-        throw new CustomException(CodeEnum.SYSTEM_UNSUPPORTED_FUNCTION);
+    protected void merge(Chunk fileChunkDO, List<PartSummary> parts) {
+        // 合并文件
+        CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), fileChunkDO.getUploadId(),
+                parts.stream()
+                        .map(partSummary -> new PartETag(partSummary.getPartNumber(), partSummary.getETag()))
+                        .toList());
+        CompleteMultipartUploadResult result = ossClient.completeMultipartUpload(request);
+        if (result.getETag() == null) {
+            throw new CustomException("分片合并失败");
+        }
     }
 
     @Override
-    protected boolean uploadPart(Chunk fileChunkDO, int partNumber, byte[] file) {
-        throw new CustomException(CodeEnum.SYSTEM_UNSUPPORTED_FUNCTION);
+    protected String uploadPart(Chunk fileChunkDO, int partNumber, InputStream stream, long size) {
+        try {
+            UploadPartRequest uploadPartRequest = new UploadPartRequest(fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(),
+                    fileChunkDO.getUploadId(), partNumber, stream, size);
+            // 执行上传并获取结果
+            PartETag partETag = ossClient.uploadPart(uploadPartRequest).getPartETag();
+            log.info("分片上传成功, partNumber={}, etag={}", partNumber, partETag.getETag());
+            return partETag.getETag();
+        } catch (Exception e) {
+            storageError(e);
+            log.error("分片上传失败, partNumber={}, error={}",  partNumber, e.getMessage(), e);
+            return null;
+        }
     }
 
     @Override
     public boolean upload(String path, InputStream stream, long size, String type) {
-        OSS ossClient = getOssClient();
         try {
             // 调用 OSS 方法上传
-            ossClient.putObject(ossProperties.getBucketName(), path, stream);
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(size);
+            if (type != null) {
+                metadata.setContentType(type);
+            }
+            ossClient.putObject(ossProperties.getBucketName(), path, stream, metadata);
             return true; // 上传成功
         } catch (OSSException oe) {
+            storageError(oe);
             log.error("OSS 异常：{}", oe.getErrorMessage());
             log.error("错误码：{}", oe.getErrorCode());
             log.info("Request ID：{}", oe.getRequestId());
             log.info("Host ID：{}", oe.getHostId());
             return false;
         } catch (ClientException ce) {
+            storageError(ce);
             log.error("客户端异常：{}", ce.getMessage());
             return false;
         } finally {
-            ossClient.shutdown();
+            IoUtil.close(stream);
         }
     }
 
@@ -68,31 +124,142 @@ public class OSSUploadStrategyImpl extends AbstractUploadStrategyImpl {
 
     @Override
     public boolean removeObject(String objectKey) {
-        OSS ossClient = getOssClient();
         try {
             ossClient.deleteObject(ossProperties.getBucketName(), objectKey);
             return true;
         } catch (Exception e) {
+            storageError(e);
             log.error("删除对象异常: {}", e.getMessage(), e);
             return false;
         }
     }
 
+    @Override
+    protected boolean abortMultipart(Chunk fileChunkDO) {
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), fileChunkDO.getUploadId()));
+            return true;
+        } catch (Exception e) {
+            storageError(e);
+            log.error("中止分片上传异常: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    protected String presignPart(Chunk fileChunkDO, int partNumber, Date expiration) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(fileChunkDO.getBucketName(), fileChunkDO.getObjectKey(), HttpMethod.PUT);
+        request.setExpiration(expiration);
+        request.addQueryParameter("uploadId", fileChunkDO.getUploadId());
+        request.addQueryParameter("partNumber", String.valueOf(partNumber));
+        return ossClient.generatePresignedUrl(request).toString();
+    }
+
+    @Override
+    protected String presignGet(String objectKey, Date expiration) {
+        return ossClient.generatePresignedUrl(ossProperties.getBucketName(), objectKey, expiration, HttpMethod.GET).toString();
+    }
+
+    @Override
+    protected long objectLength(String objectKey) {
+        try {
+            return ossClient.getObjectMetadata(ossProperties.getBucketName(), objectKey).getContentLength();
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeObject(StoredObject object, long start, long end, OutputStream out) throws IOException {
+        // Range透传给存储，只拉取需要的区间
+        GetObjectRequest request = new GetObjectRequest(ossProperties.getBucketName(), object.getObjectKey());
+        request.setRange(start, end);
+        try (OSSObject ossObject = ossClient.getObject(request);
+             InputStream in = ossObject.getObjectContent()) {
+            IoUtil.copy(in, out);
+        }
+    }
+
     @Override
     public String test() {
         return "Hello, oss";
     }
 
+    @Override
+    public UploadModeEnum getMode() {
+        return UploadModeEnum.OSS;
+    }
+
     @Override
     public Chunk createFileChunkDO(FileChunkInitTaskReq req, String objectName) {
-        throw new CustomException(CodeEnum.SYSTEM_UNSUPPORTED_FUNCTION);
+        // 根据文件名（后缀）获取文件类型
+        String contentType = MediaTypeFactory.getMediaType(objectName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        // 通过OSS获取分片上传任务ID
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        InitiateMultipartUploadResult uploadResult;
+        try {
+            uploadResult = ossClient.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(ossProperties.getBucketName(), objectName, metadata));
+        } catch (Exception e) {
+            storageError(e);
+            log.error("初始化分片上传任务异常: {}", e.getMessage(), e);
+            throw new CustomException("初始化分片上传任务失败");
+        }
+        // 存储分片上传任务信息
+        int chunkNum = (int) Math.ceil(req.getTotalSize() * 1.0 / req.getChunkSize());
+        return Chunk.builder()
+                .identifier(req.getIdentifier())
+                .uploadId(uploadResult.getUploadId())
+                .fileName(req.getFileName())
+                .bucketName(ossProperties.getBucketName())
+                .objectKey(objectName)
+                .totalSize(req.getTotalSize())
+                .chunkSize(req.getChunkSize())
+                .chunkNum(chunkNum).build();
+    }
+
+    /**
+     * 列出分片上传任务的全部已上传分片（ListParts单次最多返回1000条，需要翻页）
+     * @param task 分片任务
+     * @return 已上传分片列表
+     */
+    private List<com.aliyun.oss.model.PartSummary> listAllParts(Chunk task) {
+        List<com.aliyun.oss.model.PartSummary> parts = new ArrayList<>();
+        ListPartsRequest request = new ListPartsRequest(task.getBucketName(), task.getObjectKey(), task.getUploadId());
+        request.setMaxParts(MAX_PARTS_PER_PAGE);
+        PartListing partListing;
+        do {
+            partListing = ossClient.listParts(request);
+            parts.addAll(partListing.getParts());
+            request.setPartNumberMarker(partListing.getNextPartNumberMarker());
+        } while (partListing.isTruncated());
+        return parts;
+    }
+
+    public boolean isObjectExist(String objectKey) {
+        try {
+            return ossClient.doesObjectExist(ossProperties.getBucketName(), objectKey);
+        } catch (Exception e) {
+            storageError(e);
+            log.error("检查对象存在异常: {}", e.getMessage(), e);
+            return false;
+        }
     }
+
     /**
-     * 获取ossClient
-     *
-     * @return {@link OSS} ossClient
+     * 将OSS分片信息转换为统一的分片信息返回给前端
      */
-    private OSS getOssClient() {
-        return new OSSClientBuilder().build(ossProperties.getEndpoint(), ossProperties.getAccessKeyId(), ossProperties.getAccessKeySecret());
+    private static PartSummary toPartSummary(com.aliyun.oss.model.PartSummary ossPart) {
+        PartSummary part = new PartSummary();
+        part.setPartNumber(ossPart.getPartNumber());
+        part.setETag(ossPart.getETag());
+        part.setSize(ossPart.getSize());
+        part.setLastModified(ossPart.getLastModified());
+        return part;
     }
 }
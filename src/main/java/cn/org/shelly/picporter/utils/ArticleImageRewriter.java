@@ -0,0 +1,301 @@
+package cn.org.shelly.picporter.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 文章图片链接单遍扫描改写器
+ * <p>
+ * 在字符缓冲区上逐字符扫描文章，同时识别 HTML {@code <img src="...">} 与 Markdown {@code ![alt](path)} 两种图片语法，
+ * 不使用正则，普通文本按段整块输出，可直接在 Reader 与 Writer 之间流式处理任意大小的文章。
+ * 单个图片标记（从 '&lt;' 或 '!' 到结束的 '&gt;' 或 ')'）最长 {@link #MAX_TOKEN_LENGTH} 个字符，超出时按普通文本输出
+ * </p>
+ * @author shelly
+ */
+public final class ArticleImageRewriter {
+
+    /**
+     * 单个图片标记的最大长度
+     */
+    public static final int MAX_TOKEN_LENGTH = 8192;
+
+    /**
+     * 读取缓冲区大小，需大于单个图片标记的最大长度
+     */
+    private static final int BUFFER_SIZE = MAX_TOKEN_LENGTH * 8;
+
+    private ArticleImageRewriter() {
+    }
+
+    /**
+     * 提取文章中的全部图片路径（去重，保持出现顺序）
+     * @param content 文章内容
+     * @return 图片路径
+     */
+    public static Set<String> collect(String content) {
+        try {
+            return collect(new StringReader(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 提取文章中的全部图片路径（去重，保持出现顺序）
+     * @param in 文章输入
+     * @return 图片路径
+     */
+    public static Set<String> collect(Reader in) throws IOException {
+        Set<String> paths = new LinkedHashSet<>();
+        scan(in, null, path -> {
+            paths.add(path);
+            return null;
+        });
+        return paths;
+    }
+
+    /**
+     * 改写文章中的图片路径
+     * @param content 文章内容
+     * @param mapper 路径映射，返回null表示保持原样
+     * @return 改写后的文章
+     */
+    public static String rewrite(String content, UnaryOperator<String> mapper) {
+        StringWriter out = new StringWriter(content.length());
+        try {
+            scan(new StringReader(content), out, mapper);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 流式改写文章中的图片路径
+     * @param in 文章输入
+     * @param out 改写后的输出
+     * @param mapper 路径映射，返回null表示保持原样
+     */
+    public static void rewrite(Reader in, Writer out, UnaryOperator<String> mapper) throws IOException {
+        scan(in, out, mapper);
+    }
+
+    private static void scan(Reader in, Writer out, UnaryOperator<String> mapper) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        int len = 0;
+        int pos = 0;
+        boolean eof = false;
+        while (true) {
+            // 剩余不足一个标记长度时，将未处理的字符移到缓冲区开头再填充，保证候选标记完整位于缓冲区内
+            if (!eof && len - pos <= MAX_TOKEN_LENGTH) {
+                System.arraycopy(buf, pos, buf, 0, len - pos);
+                len -= pos;
+                pos = 0;
+                while (len < buf.length) {
+                    int n = in.read(buf, len, buf.length - len);
+                    if (n == -1) {
+                        eof = true;
+                        break;
+                    }
+                    len += n;
+                }
+            }
+            if (pos >= len) {
+                break;
+            }
+            // 未读到结尾时，只扫描到能容纳一个完整标记的位置
+            int safe = eof ? len : len - MAX_TOKEN_LENGTH;
+            int textStart = pos;
+            while (pos < safe) {
+                char c = buf[pos];
+                int[] token = null;
+                if (c == '<') {
+                    token = htmlImage(buf, pos, Math.min(len, pos + MAX_TOKEN_LENGTH));
+                } else if (c == '!') {
+                    token = markdownImage(buf, pos, Math.min(len, pos + MAX_TOKEN_LENGTH));
+                }
+                if (token == null) {
+                    pos++;
+                    continue;
+                }
+                write(out, buf, textStart, pos);
+                emit(buf, pos, token, out, mapper);
+                pos = token[0];
+                textStart = pos;
+            }
+            write(out, buf, textStart, pos);
+        }
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * 输出图片标记，路径经映射后替换
+     * @param token 标记结束下标、路径起止下标，无路径时起始下标为-1
+     */
+    private static void emit(char[] buf, int start, int[] token, Writer out, UnaryOperator<String> mapper) throws IOException {
+        if (token[1] < 0) {
+            write(out, buf, start, token[0]);
+            return;
+        }
+        String replaced = mapper.apply(new String(buf, token[1], token[2] - token[1]));
+        if (replaced == null) {
+            write(out, buf, start, token[0]);
+        } else if (out != null) {
+            write(out, buf, start, token[1]);
+            out.write(replaced);
+            write(out, buf, token[2], token[0]);
+        }
+    }
+
+    /**
+     * 解析 {@code <img ...>} 标签，buf[pos] 为 '&lt;'，引号内的 '&gt;' 不视为结束
+     * @return 标记结束下标与src属性值起止下标，不是img标签或超出limit时返回null
+     */
+    private static int[] htmlImage(char[] buf, int pos, int limit) {
+        int nameStart = pos + 1;
+        // 标签名必须是img，且后面紧跟空白、'/'或'>'
+        if (nameStart + 4 > limit
+                || Character.toLowerCase(buf[nameStart]) != 'i'
+                || Character.toLowerCase(buf[nameStart + 1]) != 'm'
+                || Character.toLowerCase(buf[nameStart + 2]) != 'g'
+                || !isTagNameEnd(buf[nameStart + 3])) {
+            return null;
+        }
+        int i = nameStart + 3;
+        if (buf[i] != '>') {
+            char quote = 0;
+            for (i++; ; i++) {
+                if (i >= limit) {
+                    return null;
+                }
+                char c = buf[i];
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    break;
+                }
+            }
+        }
+        int end = i + 1;
+        int[] src = findSrc(buf, nameStart + 3, end);
+        return src == null ? new int[]{end, -1, -1} : new int[]{end, src[0], src[1]};
+    }
+
+    /**
+     * 在标签的属性部分查找src属性值，返回值的起止下标
+     */
+    private static int[] findSrc(char[] buf, int from, int to) {
+        int i = from;
+        while (i < to) {
+            char c = buf[i];
+            if (Character.isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+            if (c == '>') {
+                return null;
+            }
+            // 属性名
+            int nameStart = i;
+            while (i < to && !Character.isWhitespace(buf[i]) && buf[i] != '=' && buf[i] != '>' && buf[i] != '/') {
+                i++;
+            }
+            int nameEnd = i;
+            while (i < to && Character.isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i >= to || buf[i] != '=') {
+                continue;
+            }
+            i++;
+            while (i < to && Character.isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i >= to) {
+                return null;
+            }
+            // 属性值
+            char q = buf[i];
+            int valueStart;
+            int valueEnd;
+            if (q == '"' || q == '\'') {
+                valueStart = i + 1;
+                valueEnd = valueStart;
+                while (valueEnd < to && buf[valueEnd] != q) {
+                    valueEnd++;
+                }
+                if (valueEnd >= to) {
+                    return null;
+                }
+                i = valueEnd + 1;
+            } else {
+                valueStart = i;
+                valueEnd = i;
+                while (valueEnd < to && !Character.isWhitespace(buf[valueEnd]) && buf[valueEnd] != '>') {
+                    valueEnd++;
+                }
+                i = valueEnd;
+            }
+            if (nameEnd - nameStart == 3
+                    && Character.toLowerCase(buf[nameStart]) == 's'
+                    && Character.toLowerCase(buf[nameStart + 1]) == 'r'
+                    && Character.toLowerCase(buf[nameStart + 2]) == 'c') {
+                return new int[]{valueStart, valueEnd};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析 {@code ![alt](path)}，buf[pos] 为 '!'。说明不含 ']'，路径不跨行，到第一个 ')' 为止
+     * @return 标记结束下标与路径起止下标，不匹配或超出limit时返回null
+     */
+    private static int[] markdownImage(char[] buf, int pos, int limit) {
+        int i = pos + 1;
+        if (i >= limit || buf[i] != '[') {
+            return null;
+        }
+        // 图片说明
+        i++;
+        while (i < limit && buf[i] != ']') {
+            i++;
+        }
+        if (i + 1 >= limit || buf[i + 1] != '(') {
+            return null;
+        }
+        int pathStart = i + 2;
+        for (i = pathStart; i < limit; i++) {
+            char c = buf[i];
+            if (c == ')') {
+                return new int[]{i + 1, pathStart, i};
+            }
+            if (c == '\n' || c == '\r') {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return Character.isWhitespace(c) || c == '/' || c == '>';
+    }
+
+    private static void write(Writer out, char[] buf, int from, int to) throws IOException {
+        if (out != null && to > from) {
+            out.write(buf, from, to - from);
+        }
+    }
+}
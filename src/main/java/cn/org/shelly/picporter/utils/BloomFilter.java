@@ -0,0 +1,125 @@
+package cn.org.shelly.picporter.utils;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的布隆过滤器
+ * <p>
+ * 使用MurmurHash3的128位结果做双重哈希生成k个位置，位数组基于 {@link AtomicLongArray} 实现无锁并发写入。
+ * mightContain返回false时元素一定不存在，返回true时可能存在
+ * </p>
+ * @author shelly
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    /**
+     * 位数组长度
+     */
+    private final long bitSize;
+
+    /**
+     * 哈希函数个数
+     */
+    private final int hashFunctions;
+
+    /**
+     * 已置位的位数
+     */
+    private final LongAdder bitCount = new LongAdder();
+
+    /**
+     * 已写入的元素个数（近似，重复写入同样计数）
+     */
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * @param expectedInsertions 预计元素个数
+     * @param fpp 期望误判率
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("expectedInsertions必须大于0，fpp必须在(0,1)之间");
+        }
+        long numBits = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact((Math.max(numBits, 64) + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 写入元素
+     * @param value 元素
+     */
+    public void put(CharSequence value) {
+        long[] hash = MurmurHash.hash128(value);
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit((combined & Long.MAX_VALUE) % bitSize);
+            combined += hash[1];
+        }
+        insertions.increment();
+    }
+
+    /**
+     * 判断元素是否可能存在
+     * @param value 元素
+     * @return false表示一定不存在
+     */
+    public boolean mightContain(CharSequence value) {
+        long[] hash = MurmurHash.hash128(value);
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    /**
+     * 根据当前置位比例估算的误判率
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.sum() / bitSize, hashFunctions);
+    }
+
+    /**
+     * 位数组占用内存（字节）
+     */
+    public long memoryBytes() {
+        return bitSize / 8;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long old;
+        do {
+            old = bits.get(word);
+            if ((old & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, old, old | mask));
+        bitCount.increment();
+    }
+}
@@ -0,0 +1,341 @@
+package cn.org.shelly.picporter.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图片衍生图工具
+ * <p>
+ * 仅依赖 JDK 自带的 ImageIO 编解码，输出时不写入任何元数据，EXIF 等信息随重编码一并去除，
+ * 因此解码时先按 JPEG 的 EXIF 方向标记转正图片。运行环境注册了其他 ImageIO 插件（如 WebP）时会自动使用
+ * </p>
+ * @author shelly
+ */
+public final class ImageDerivatives {
+
+    /**
+     * EXIF 方向标记
+     */
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private ImageDerivatives() {
+    }
+
+    /**
+     * 判断文件后缀是否为可解码的图片
+     * @param suffix 文件后缀
+     * @return boolean
+     */
+    public static boolean isReadable(String suffix) {
+        return suffix != null && ImageIO.getImageReadersBySuffix(suffix).hasNext();
+    }
+
+    /**
+     * 解码图片，解码前先读取尺寸，超过像素上限时不解码；JPEG 按 EXIF 方向标记转正
+     * @param data 图片数据
+     * @param maxPixels 最大像素数
+     * @return {@link BufferedImage} 无法识别或超过上限时返回null
+     */
+    public static BufferedImage read(byte[] data, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // 忽略元数据，减少解码开销
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return orient(reader.read(0), orientation(data));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 读取 JPEG 的 EXIF 方向标记
+     * <p>
+     * 解码时忽略了元数据，这里直接扫描 APP1 段中的 IFD0，只取方向一项，不引入元数据库
+     * </p>
+     * @param data 图片数据
+     * @return 方向 1~8，非 JPEG、没有或无法解析方向标记时返回1
+     */
+    static int orientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= data.length && (data[pos] & 0xFF) == 0xFF) {
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // 填充字节
+                pos++;
+                continue;
+            }
+            // 图像数据开始，EXIF 段只出现在其之前
+            if (marker == 0xDA || marker == 0xD9) {
+                break;
+            }
+            int length = u16(data, pos + 2, true);
+            if (length < 2) {
+                break;
+            }
+            if (marker == 0xE1 && length >= 16 && pos + 2 + length <= data.length && isExif(data, pos + 4)) {
+                return tiffOrientation(data, pos + 10, pos + 2 + length);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * 按方向标记转正图片
+     * @param src 解码后的图片
+     * @param orientation EXIF 方向 1~8
+     * @return {@link BufferedImage} 方向为1时返回原图
+     */
+    static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return src;
+        }
+        int w = src.getWidth();
+        int h = src.getHeight();
+        // 5~8 需要旋转90度，宽高互换
+        boolean swap = orientation >= 5;
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);
+        };
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage dest = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = dest.createGraphics();
+        try {
+            g.drawImage(src, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return dest;
+    }
+
+    /**
+     * 按宽度等比缩放，原图不大于目标宽度时不放大
+     * @param src 原图
+     * @param width 目标宽度
+     * @return {@link BufferedImage}
+     */
+    public static BufferedImage resize(BufferedImage src, int width) {
+        if (src.getWidth() <= width) {
+            return src;
+        }
+        int height = Math.max(1, (int) Math.round((double) src.getHeight() * width / src.getWidth()));
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        // 逐级减半缩放，避免一次缩小倍数过大时双线性插值丢失细节
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    /**
+     * 等比缩放到不超过给定宽高的范围内，不放大
+     * @param src 原图
+     * @param maxWidth 最大宽度，为空表示不限制
+     * @param maxHeight 最大高度，为空表示不限制
+     * @return {@link BufferedImage}
+     */
+    public static BufferedImage fit(BufferedImage src, Integer maxWidth, Integer maxHeight) {
+        double scale = 1;
+        if (maxWidth != null) {
+            scale = Math.min(scale, (double) maxWidth / src.getWidth());
+        }
+        if (maxHeight != null) {
+            scale = Math.min(scale, (double) maxHeight / src.getHeight());
+        }
+        return scale >= 1 ? src : resize(src, Math.max(1, (int) Math.round(src.getWidth() * scale)));
+    }
+
+    /**
+     * 是否有可用的编码器
+     * @param format 格式名
+     * @return boolean
+     */
+    public static boolean isWritable(String format) {
+        return format != null && ImageIO.getImageWritersByFormatName(format).hasNext();
+    }
+
+    /**
+     * 是否为无损格式，编码时不使用质量参数
+     * @param format 格式名
+     * @return boolean
+     */
+    public static boolean isLossless(String format) {
+        return "png".equals(format) || "gif".equals(format) || "bmp".equals(format);
+    }
+
+    /**
+     * 确定输出格式，首选格式没有可用编码器时回退为jpg；含透明通道而首选格式不支持透明时为png
+     * @param preferred 首选格式
+     * @param alpha 是否含透明通道
+     * @return {@link String} 格式名
+     */
+    public static String resolveFormat(String preferred, boolean alpha) {
+        String format = isWritable(preferred) ? preferred.toLowerCase() : "jpg";
+        return alpha && !supportsAlpha(format) ? "png" : format;
+    }
+
+    /**
+     * 是否支持透明通道，JDK 自带编码器中jpg与bmp不支持
+     * @param format 格式名
+     * @return boolean
+     */
+    public static boolean supportsAlpha(String format) {
+        return !"jpg".equals(format) && !"jpeg".equals(format) && !"bmp".equals(format);
+    }
+
+    /**
+     * 编码图片，不写入任何元数据
+     * @param image 图片
+     * @param format 格式名
+     * @param quality 有损编码质量，0~1
+     * @return 编码后的数据
+     */
+    public static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        if ("jpg".equals(format) || "jpeg".equals(format)) {
+            image = toRgb(image);
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!isLossless(format) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (param.getCompressionType() == null && types != null && types.length > 0) {
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 获取格式对应的内容类型
+     * @param format 格式名
+     * @return {@link String}
+     */
+    public static String contentType(String format) {
+        return "image/" + ("jpg".equals(format) ? "jpeg" : format);
+    }
+
+    private static boolean isExif(byte[] data, int pos) {
+        return data[pos] == 'E' && data[pos + 1] == 'x' && data[pos + 2] == 'i' && data[pos + 3] == 'f'
+                && data[pos + 4] == 0 && data[pos + 5] == 0;
+    }
+
+    /**
+     * 在 TIFF 结构的 IFD0 中查找方向标记
+     * @param data 图片数据
+     * @param tiff TIFF 头起始位置，偏移量均相对于此
+     * @param end APP1 段结束位置
+     */
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        boolean bigEndian;
+        if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            bigEndian = true;
+        } else if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            bigEndian = false;
+        } else {
+            return 1;
+        }
+        if (u16(data, tiff + 2, bigEndian) != 42) {
+            return 1;
+        }
+        long ifd = tiff + u32(data, tiff + 4, bigEndian);
+        if (ifd + 2 > end) {
+            return 1;
+        }
+        int count = u16(data, (int) ifd, bigEndian);
+        for (int i = 0; i < count; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            // 方向为 SHORT 类型，值位于条目的值字段前两个字节
+            if (u16(data, entry, bigEndian) == TAG_ORIENTATION && u16(data, entry + 2, bigEndian) == 3) {
+                int value = u16(data, entry + 8, bigEndian);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] data, int pos, boolean bigEndian) {
+        int a = data[pos] & 0xFF;
+        int b = data[pos + 1] & 0xFF;
+        return bigEndian ? a << 8 | b : b << 8 | a;
+    }
+
+    private static long u32(byte[] data, int pos, boolean bigEndian) {
+        long high = u16(data, bigEndian ? pos : pos + 2, bigEndian);
+        long low = u16(data, bigEndian ? pos + 2 : pos, bigEndian);
+        return high << 16 | low;
+    }
+
+    /**
+     * JPEG不支持透明通道及索引色，编码前转为RGB
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+}
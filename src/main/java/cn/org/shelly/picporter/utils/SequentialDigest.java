@@ -0,0 +1,83 @@
+package cn.org.shelly.picporter.utils;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.SecureUtil;
+
+import java.security.MessageDigest;
+
+/**
+ * 按分片顺序增量计算的整文件MD5
+ * <p>
+ * 分片按序号依次到达时推进摘要状态；乱序到达的分片无法参与计算，此时 {@link #isComplete(int)} 返回false，由调用方在合并后读回对象校验
+ * </p>
+ * @author shelly
+ */
+public class SequentialDigest {
+
+    private MessageDigest digest = SecureUtil.md5().getDigest();
+
+    /**
+     * 下一个可参与计算的分片序号
+     */
+    private int nextPart = 1;
+
+    /**
+     * 判断分片是否为下一个待计算分片
+     * @param partNumber 分片序号
+     */
+    public synchronized boolean isNext(int partNumber) {
+        return partNumber == nextPart;
+    }
+
+    /**
+     * 复制当前摘要状态，供分片上传过程中边传边算
+     */
+    public synchronized MessageDigest fork() {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 分片上传成功后用计算后的摘要状态推进
+     * @param partNumber 分片序号
+     * @param forked 已更新分片数据的摘要
+     */
+    public synchronized void advance(int partNumber, MessageDigest forked) {
+        if (partNumber == nextPart) {
+            digest = forked;
+            nextPart++;
+        }
+    }
+
+    /**
+     * 顺序写入数据，用于服务端自行读取文件流的场景
+     */
+    public synchronized void update(byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+    }
+
+    /**
+     * 标记一个分片已顺序写入
+     */
+    public synchronized void nextPart() {
+        nextPart++;
+    }
+
+    /**
+     * 是否已按顺序计算了全部分片
+     * @param chunkNum 分片总数
+     */
+    public synchronized boolean isComplete(int chunkNum) {
+        return nextPart == chunkNum + 1;
+    }
+
+    /**
+     * 整文件MD5（十六进制），调用后不应再更新
+     */
+    public synchronized String hex() {
+        return HexUtil.encodeHexStr(fork().digest());
+    }
+}
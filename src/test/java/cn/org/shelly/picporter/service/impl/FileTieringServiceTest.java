@@ -0,0 +1,225 @@
+package cn.org.shelly.picporter.service.impl;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import cn.org.shelly.picporter.config.properties.MinioProperties;
+import cn.org.shelly.picporter.config.properties.TieringProperties;
+import cn.org.shelly.picporter.mapper.FileMapper;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.service.IPresignedUrlService;
+import cn.org.shelly.picporter.strategy.impl.LocalUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.PresignedS3;
+import cn.org.shelly.picporter.strategy.impl.StrategyFixture;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 冷热分层迁移：仅在文件仍位于热存储时更新记录，热存储原对象下一轮删除，复制按配置限速
+ * <p>
+ * 热存储为 minio、冷存储为 local；文件表由测试维护，更新语句按条件中的存储模式判断是否命中
+ * </p>
+ * @author shelly
+ */
+class FileTieringServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private StrategyFixture fixture;
+
+    private PresignedS3 s3;
+
+    private MinioUploadStrategyImpl hot;
+
+    private LocalUploadStrategyImpl cold;
+
+    private TieringProperties properties;
+
+    private FileTieringService service;
+
+    /**
+     * 为真时查询待迁移文件后即删除其记录，模拟迁移期间文件被删除
+     */
+    private boolean deleteAfterSelect;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fixture = new StrategyFixture("minio");
+        s3 = new PresignedS3();
+        MinioProperties minioProperties = new MinioProperties();
+        minioProperties.url = "http://localhost:9000";
+        minioProperties.bucketName = "test";
+        minioProperties.prefix = "test";
+        minioProperties.afterPropertiesSet();
+        hot = new MinioUploadStrategyImpl();
+        ReflectUtil.setFieldValue(hot, "minioProperties", minioProperties);
+        ReflectUtil.setFieldValue(hot, "amazonS3Client", s3);
+        fixture.wire(hot);
+
+        LocalProperties localProperties = new LocalProperties();
+        localProperties.setPath(dir.resolve("objects").toString());
+        localProperties.setUrl("http://localhost:8080/local");
+        cold = new LocalUploadStrategyImpl();
+        ReflectUtil.setFieldValue(cold, "localProperties", localProperties);
+        cold.initRoot();
+        fixture.wire(cold);
+
+        properties = new TieringProperties();
+        properties.setEnabled(true);
+        properties.setHot("minio");
+        properties.setCold("local");
+        properties.setFileUrl("http://localhost:8080/upload/file");
+        properties.setBytesPerSecond(0);
+        service = new FileTieringService();
+        ReflectUtil.setFieldValue(service, "tieringProperties", properties);
+        ReflectUtil.setFieldValue(service, "fileMapper", fileMapper());
+        ReflectUtil.setFieldValue(service, "storageRegistry", fixture.storageRegistry);
+        ReflectUtil.setFieldValue(service, "presignedUrlService", StrategyFixture.stub(IPresignedUrlService.class, Map.of()));
+        ReflectUtil.setFieldValue(service, "isStored", true);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+        fixture.close();
+    }
+
+    @Test
+    void movesToColdAndRemovesHotCopyNextRound() throws IOException {
+        byte[] content = RandomUtil.randomBytes(4096);
+        File file = coldFile("test/cold.png", content);
+
+        service.migrate();
+        assertThat(file.getStorage()).isEqualTo("local");
+        assertThat(Files.readAllBytes(cold.resolve(file.getObjectKey()))).isEqualTo(content);
+        // 切换前已开始的读取仍可完成，热存储副本保留到下一轮
+        assertThat(s3.object(file.getObjectKey())).isEqualTo(content);
+        assertThat(service.getMovedCount()).isEqualTo(1);
+        assertThat(service.getMovedBytes()).isEqualTo(content.length);
+
+        service.migrate();
+        assertThat(s3.object(file.getObjectKey())).isNull();
+        assertThat(Files.readAllBytes(cold.resolve(file.getObjectKey()))).isEqualTo(content);
+    }
+
+    @Test
+    void deletedDuringMoveKeepsRecordUntouched() throws IOException {
+        byte[] content = RandomUtil.randomBytes(4096);
+        File file = coldFile("test/deleted.png", content);
+        deleteAfterSelect = true;
+
+        service.migrate();
+        // 记录已不在热存储，条件更新未命中：清理冷存储副本，不登记热存储删除
+        assertThat(file.getStorage()).isEqualTo("minio");
+        assertThat(Files.exists(cold.resolve(file.getObjectKey()))).isFalse();
+        assertThat(service.getMovedCount()).isZero();
+
+        service.migrate();
+        assertThat(s3.object(file.getObjectKey())).isEqualTo(content);
+    }
+
+    @Test
+    void missingObjectCountsAsFailure() {
+        File file = fixture.insertFile("missing", "test/missing.png", "minio");
+        file.setGmtAccess(daysAgo(60));
+
+        service.migrate();
+        assertThat(file.getStorage()).isEqualTo("minio");
+        assertThat(service.getFailedCount()).isEqualTo(1);
+        assertThat(service.getMovedCount()).isZero();
+    }
+
+    @Test
+    void copyIsThrottled() throws IOException {
+        byte[] content = RandomUtil.randomBytes(64 * 1024);
+        coldFile("test/throttled.png", content);
+        properties.setBytesPerSecond(64 * 1024);
+
+        long start = System.nanoTime();
+        service.migrate();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(service.getMovedBytes()).isEqualTo(content.length);
+        assertThat(elapsed).isGreaterThanOrEqualTo(900);
+    }
+
+    /**
+     * 写入热存储中超过 cold-after-days 未读取的文件
+     */
+    private File coldFile(String objectKey, byte[] content) {
+        assertThat(hot.upload(objectKey, new ByteArrayInputStream(content), content.length, "image/png")).isTrue();
+        File file = fixture.insertFile(objectKey, objectKey, "minio");
+        file.setGmtAccess(daysAgo(60));
+        return file;
+    }
+
+    private static Date daysAgo(int days) {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+    }
+
+    /**
+     * 文件表替身：查询返回热存储中读取时间早于截止时间的文件，
+     * 更新存储模式时仅命中仍位于热存储的记录
+     */
+    private FileMapper fileMapper() {
+        return StrategyFixture.stub(FileMapper.class, Map.of(
+                "selectList", args -> {
+                    Date cutoff = daysAgo(properties.getColdAfterDays());
+                    List<File> candidates = fixture.files.stream()
+                            .filter(file -> file.getStorage() == null || "minio".equals(file.getStorage()))
+                            .filter(file -> file.getGmtAccess() != null && file.getGmtAccess().before(cutoff))
+                            .map(FileTieringServiceTest::copy)
+                            .toList();
+                    if (deleteAfterSelect) {
+                        fixture.files.clear();
+                    }
+                    return candidates;
+                },
+                "update", args -> {
+                    UpdateWrapper<?> wrapper = (UpdateWrapper<?>) args[1];
+                    if (!wrapper.getSqlSet().startsWith("storage")) {
+                        return 0;
+                    }
+                    wrapper.getSqlSegment();
+                    Object id = wrapper.getParamNameValuePairs().values().stream()
+                            .filter(Long.class::isInstance).findFirst().orElse(null);
+                    File file = fixture.files.stream()
+                            .filter(f -> Objects.equals(f.getId(), id))
+                            .filter(f -> f.getStorage() == null || "minio".equals(f.getStorage()))
+                            .findFirst().orElse(null);
+                    if (file == null) {
+                        return 0;
+                    }
+                    file.setStorage("local");
+                    return 1;
+                }));
+    }
+
+    private static File copy(File file) {
+        File copy = new File();
+        copy.setId(file.getId());
+        copy.setIdentifier(file.getIdentifier());
+        copy.setObjectKey(file.getObjectKey());
+        copy.setDerivatives(file.getDerivatives());
+        copy.setStorage(file.getStorage());
+        return copy;
+    }
+}
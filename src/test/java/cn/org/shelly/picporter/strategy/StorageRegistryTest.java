@@ -0,0 +1,54 @@
+package cn.org.shelly.picporter.strategy;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.strategy.impl.LocalUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 按文件记录的存储模式查找策略，未记录时使用 upload.strategy
+ * @author shelly
+ */
+class StorageRegistryTest {
+
+    private final StorageRegistry registry = new StorageRegistry();
+
+    private final MinioUploadStrategyImpl minio = new MinioUploadStrategyImpl();
+
+    private final LocalUploadStrategyImpl local = new LocalUploadStrategyImpl();
+
+    StorageRegistryTest() {
+        ReflectUtil.setFieldValue(registry, "defaultStorage", "minio");
+        ReflectUtil.setFieldValue(local, "localProperties", new LocalProperties());
+        registry.register(minio);
+        registry.register(local);
+    }
+
+    @Test
+    void getByStorage() {
+        assertThat(registry.get("minio")).isSameAs(minio);
+        assertThat(registry.get("local")).isSameAs(local);
+        assertThat(registry.all()).containsExactlyInAnyOrder(minio, local);
+    }
+
+    @Test
+    void nullStorageUsesDefault() {
+        // 升级前写入的文件没有存储模式，位于启动时配置的 upload.strategy
+        assertThat(registry.get(null)).isSameAs(minio);
+        assertThat(registry.getDefaultStorage()).isEqualTo("minio");
+    }
+
+    @Test
+    void unloadedStorageRejected() {
+        assertThatThrownBy(() -> registry.get("oss"))
+                .isInstanceOf(CustomException.class)
+                .hasMessage("存储 oss 未加载");
+        assertThatThrownBy(() -> registry.get("ftp"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
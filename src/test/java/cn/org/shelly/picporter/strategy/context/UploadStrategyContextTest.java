@@ -0,0 +1,244 @@
+package cn.org.shelly.picporter.strategy.context;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import cn.org.shelly.picporter.config.properties.MinioProperties;
+import cn.org.shelly.picporter.config.properties.RoutingProperties;
+import cn.org.shelly.picporter.enums.UploadModeEnum;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
+import cn.org.shelly.picporter.model.req.FileUploadReq;
+import cn.org.shelly.picporter.service.IFileTieringService;
+import cn.org.shelly.picporter.strategy.StoredObject;
+import cn.org.shelly.picporter.strategy.UploadStrategy;
+import cn.org.shelly.picporter.strategy.impl.LocalUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.MinioUploadStrategyImpl;
+import cn.org.shelly.picporter.strategy.impl.PresignedS3;
+import cn.org.shelly.picporter.strategy.impl.StrategyFixture;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 运行时切换存储后，分片任务、读取与删除仍由数据所在的存储处理
+ * <p>
+ * 启动存储为 minio，同时加载 local；分片任务按 chunk.storage、文件按 file.storage 路由，
+ * 两者为空（升级前写入）时使用 upload.strategy 而不是切换后的当前存储
+ * </p>
+ * @author shelly
+ */
+class UploadStrategyContextTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path dir;
+
+    private StrategyFixture fixture;
+
+    private PresignedS3 s3;
+
+    private MinioUploadStrategyImpl minio;
+
+    private LocalUploadStrategyImpl local;
+
+    private UploadStrategyContext context;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fixture = new StrategyFixture("minio");
+        s3 = new PresignedS3();
+        MinioProperties minioProperties = new MinioProperties();
+        minioProperties.url = "http://localhost:9000";
+        minioProperties.bucketName = "test";
+        minioProperties.prefix = "test";
+        minioProperties.afterPropertiesSet();
+        minio = new MinioUploadStrategyImpl();
+        ReflectUtil.setFieldValue(minio, "minioProperties", minioProperties);
+        ReflectUtil.setFieldValue(minio, "amazonS3Client", s3);
+        fixture.wire(minio);
+
+        LocalProperties localProperties = new LocalProperties();
+        localProperties.setPath(dir.resolve("objects").toString());
+        localProperties.setUrl("http://localhost:8080/local");
+        local = new LocalUploadStrategyImpl();
+        ReflectUtil.setFieldValue(local, "localProperties", localProperties);
+        local.initRoot();
+        fixture.wire(local);
+
+        context = new UploadStrategyContext();
+        ReflectUtil.setFieldValue(context, "uploadStrategy", "minio");
+        ReflectUtil.setFieldValue(context, "uploadStrategyMap", Map.<String, UploadStrategy>of(
+                UploadModeEnum.MINIO.getStrategy(), minio,
+                UploadModeEnum.LOCAL.getStrategy(), local));
+        ReflectUtil.setFieldValue(context, "uploadMetrics", fixture.uploadMetrics);
+        ReflectUtil.setFieldValue(context, "chunkService", fixture.chunkService());
+        ReflectUtil.setFieldValue(context, "fileTieringService", StrategyFixture.stub(IFileTieringService.class, Map.of()));
+        ReflectUtil.setFieldValue(context, "routingProperties", new RoutingProperties());
+        ReflectUtil.setFieldValue(context, "batchMaxFiles", 50);
+        context.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+        fixture.close();
+    }
+
+    @Test
+    void chunkTaskStaysOnCreatingStorage() {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 2 + 10);
+        String identifier = SecureUtil.md5().digestHex(content);
+        String objectKey = context.initFileChunkTask(request(identifier, content.length)).getObjectKey();
+        assertThat(fixture.chunks.get(identifier).getStorage()).isEqualTo("minio");
+
+        context.switchTo("local");
+        uploadAll(identifier, content);
+        context.mergeFileChunk(identifier);
+
+        assertThat(s3.object(objectKey)).isEqualTo(content);
+        assertThat(fixture.file(identifier).getStorage()).isEqualTo("minio");
+        assertThat(Files.exists(local.resolve(objectKey))).isFalse();
+    }
+
+    @Test
+    void legacyChunkTaskUsesConfiguredStorage() {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE + 10);
+        String identifier = SecureUtil.md5().digestHex(content);
+        String objectKey = context.initFileChunkTask(request(identifier, content.length)).getObjectKey();
+        // 升级前创建的任务没有存储模式
+        fixture.chunks.get(identifier).setStorage(null);
+
+        context.switchTo("local");
+        uploadAll(identifier, content);
+        context.mergeFileChunk(identifier);
+
+        assertThat(s3.object(objectKey)).isEqualTo(content);
+    }
+
+    @Test
+    void readAndDeleteGoToOwningStorage() throws IOException {
+        byte[] content = RandomUtil.randomBytes(300);
+        String identifier = SecureUtil.md5().digestHex(content);
+        context.executeUploadStrategy(FileUploadReq.builder()
+                .fileName("photo.png")
+                .identifier(identifier)
+                .size((long) content.length)
+                .file(new MockMultipartFile("file", "photo.png", "image/png", content))
+                .build());
+        File file = fixture.file(identifier);
+        assertThat(file.getStorage()).isEqualTo("minio");
+
+        context.switchTo("local");
+        StoredObject object = context.getObject(identifier);
+        assertThat(object.getStorage()).isEqualTo(UploadModeEnum.MINIO);
+        assertThat(read(object)).isEqualTo(content);
+
+        context.delete(identifier);
+        assertThat(s3.object(file.getObjectKey())).isNull();
+        assertThat(fixture.file(identifier)).isNull();
+    }
+
+    @Test
+    void legacyFileUsesConfiguredStorage() throws IOException {
+        byte[] content = RandomUtil.randomBytes(300);
+        String identifier = SecureUtil.md5().digestHex(content);
+        String objectKey = "test/legacy.png";
+        assertThat(minio.upload(objectKey, new ByteArrayInputStream(content), content.length, "image/png")).isTrue();
+        // 升级前写入的文件没有存储模式
+        fixture.insertFile(identifier, objectKey, null);
+
+        context.switchTo("local");
+        StoredObject object = context.getObject(identifier);
+        assertThat(object.getStorage()).isEqualTo(UploadModeEnum.MINIO);
+        assertThat(read(object)).isEqualTo(content);
+
+        context.delete(identifier);
+        assertThat(s3.object(objectKey)).isNull();
+        assertThat(fixture.files).isEmpty();
+    }
+
+    @Test
+    void newUploadsUseActiveStorage() throws IOException {
+        context.switchTo("local");
+        byte[] content = RandomUtil.randomBytes(300);
+        String identifier = SecureUtil.md5().digestHex(content);
+        context.executeUploadStrategy(FileUploadReq.builder()
+                .fileName("photo.png")
+                .identifier(identifier)
+                .size((long) content.length)
+                .file(new MockMultipartFile("file", "photo.png", "image/png", content))
+                .build());
+
+        File file = fixture.file(identifier);
+        assertThat(file.getStorage()).isEqualTo("local");
+        assertThat(Files.readAllBytes(local.resolve(file.getObjectKey()))).isEqualTo(content);
+        assertThat(s3.object(file.getObjectKey())).isNull();
+    }
+
+    @Test
+    void bytesCountOnlyWrittenObjects() throws IOException {
+        byte[] content = RandomUtil.randomBytes(300);
+        String identifier = SecureUtil.md5().digestHex(content);
+        for (int i = 0; i < 2; i++) {
+            context.executeUploadStrategy(FileUploadReq.builder()
+                    .fileName("photo.png")
+                    .identifier(identifier)
+                    .size((long) content.length)
+                    .file(new MockMultipartFile("file", "photo.png", "image/png", content))
+                    .build());
+        }
+        // 相同内容的代理上传直接复用
+        context.proxyUpload("photo.png", identifier, content.length, new ByteArrayInputStream(content));
+
+        assertThat(fixture.files).hasSize(1);
+        assertThat(bytes("file").count()).isEqualTo(1);
+        assertThat(bytes("file").totalAmount()).isEqualTo(content.length);
+        assertThat(bytes("proxy").count()).isZero();
+    }
+
+    private DistributionSummary bytes(String type) {
+        MeterRegistry registry = (MeterRegistry) ReflectUtil.getFieldValue(fixture.uploadMetrics, "meterRegistry");
+        DistributionSummary summary = registry.find("picporter.upload.bytes").tag("type", type).summary();
+        return summary != null ? summary : DistributionSummary.builder("unused").register(new SimpleMeterRegistry());
+    }
+
+    private byte[] read(StoredObject object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        context.writeObject(object, 0, object.getSize() - 1, out);
+        return out.toByteArray();
+    }
+
+    private void uploadAll(String identifier, byte[] content) {
+        for (int part = 1; (part - 1) * CHUNK_SIZE < content.length; part++) {
+            int from = (part - 1) * CHUNK_SIZE;
+            byte[] bytes = Arrays.copyOfRange(content, from, Math.min(from + CHUNK_SIZE, content.length));
+            assertThat(context.uploadPart(identifier, part, bytes)).isTrue();
+        }
+    }
+
+    private static FileChunkInitTaskReq request(String identifier, long size) {
+        return new FileChunkInitTaskReq()
+                .setIdentifier(identifier)
+                .setFileName("photo.png")
+                .setTotalSize(size)
+                .setChunkSize((long) CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,172 @@
+package cn.org.shelly.picporter.strategy.impl;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.org.shelly.picporter.config.properties.MinioProperties;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
+import cn.org.shelly.picporter.model.resp.FileChunkResp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 经服务上传分片：按序上传时合并前即可用整文件摘要校验，校验失败时清理分片任务
+ * @author shelly
+ */
+class ChunkUploadTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private StrategyFixture fixture;
+
+    private PresignedS3 s3;
+
+    private MinioUploadStrategyImpl strategy;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3 = new PresignedS3();
+        fixture = new StrategyFixture("minio");
+        MinioProperties properties = new MinioProperties();
+        properties.url = "http://localhost:9000";
+        properties.bucketName = "test";
+        properties.prefix = "test";
+        properties.afterPropertiesSet();
+        strategy = new MinioUploadStrategyImpl();
+        ReflectUtil.setFieldValue(strategy, "minioProperties", properties);
+        ReflectUtil.setFieldValue(strategy, "amazonS3Client", s3);
+        fixture.wire(strategy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+        fixture.close();
+    }
+
+    @Test
+    void sequentialPartsMerge() {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 2 + 100);
+        String identifier = SecureUtil.md5().digestHex(content);
+
+        FileChunkResp init = strategy.initFileChunkTask(request(identifier, content.length));
+        uploadAll(identifier, content);
+
+        assertThat(strategy.mergeFileChunk(identifier)).isEqualTo("http://localhost:9000/test/" + init.getObjectKey());
+        assertThat(s3.object(init.getObjectKey())).isEqualTo(content);
+        assertThat(fixture.file(identifier)).isNotNull();
+        assertThat(fixture.chunks).isEmpty();
+    }
+
+    @Test
+    void digestMismatchRemovesTask() {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 2 + 100);
+        String identifier = SecureUtil.md5().digestHex("other".getBytes());
+
+        FileChunkResp init = strategy.initFileChunkTask(request(identifier, content.length));
+        uploadAll(identifier, content);
+
+        assertThatThrownBy(() -> strategy.mergeFileChunk(identifier))
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("内容与标识不一致");
+        // 合并前即被拒绝：对象未生成，分片上传已中止，任务与分片记录已删除
+        assertThat(s3.object(init.getObjectKey())).isNull();
+        assertThat(s3.pendingUploads()).isZero();
+        assertThat(fixture.chunks).isEmpty();
+        assertThat(fixture.partRecords).isEmpty();
+        assertThat(fixture.files).isEmpty();
+
+        // 同一标识可重新初始化，新任务不沿用旧的整文件摘要
+        byte[] retry = RandomUtil.randomBytes(CHUNK_SIZE + 1);
+        strategy.initFileChunkTask(request(identifier, retry.length));
+        uploadAll(identifier, retry);
+        assertThatThrownBy(() -> strategy.mergeFileChunk(identifier))
+                .hasMessageContaining("内容与标识不一致");
+        assertThat(fixture.chunks).isEmpty();
+    }
+
+    @Test
+    void proxyUploadDigestMismatchRemovesTask() {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 3);
+        String identifier = SecureUtil.md5().digestHex("other".getBytes());
+
+        assertThatThrownBy(() -> strategy.proxyUpload("photo.png", identifier, content.length,
+                new ByteArrayInputStream(content)))
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("内容与标识不一致");
+        assertThat(s3.pendingUploads()).isZero();
+        assertThat(fixture.chunks).isEmpty();
+        assertThat(fixture.partRecords).isEmpty();
+    }
+
+    @Test
+    void proxyUploadClosesStreamOnEarlyExit() {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE);
+        String identifier = SecureUtil.md5().digestHex(content);
+        strategy.initFileChunkTask(request(identifier, content.length));
+
+        TrackedStream stream = new TrackedStream(content);
+        assertThatThrownBy(() -> strategy.proxyUpload("photo.png", identifier, content.length, stream))
+                .hasMessageContaining("该文件已存在分片上传任务");
+        assertThat(stream.closed).isTrue();
+    }
+
+    @Test
+    void proxyUploadFailsWhenExecutorFull() {
+        // 已关闭的线程池与队列已满时一样拒绝提交，上传失败而不在请求线程上执行
+        ExecutorService rejecting = Executors.newSingleThreadExecutor();
+        rejecting.shutdown();
+        ReflectUtil.setFieldValue(strategy, "proxyUploadExecutor", rejecting);
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 3);
+        String identifier = SecureUtil.md5().digestHex(content);
+
+        TrackedStream stream = new TrackedStream(content);
+        assertThatThrownBy(() -> strategy.proxyUpload("photo.png", identifier, content.length, stream))
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("繁忙");
+        assertThat(stream.closed).isTrue();
+        assertThat(s3.pendingUploads()).isZero();
+        assertThat(fixture.chunks).isEmpty();
+    }
+
+    private void uploadAll(String identifier, byte[] content) {
+        for (int part = 1; (part - 1) * CHUNK_SIZE < content.length; part++) {
+            int from = (part - 1) * CHUNK_SIZE;
+            byte[] bytes = Arrays.copyOfRange(content, from, Math.min(from + CHUNK_SIZE, content.length));
+            assertThat(strategy.uploadPart(identifier, part, bytes)).isTrue();
+        }
+    }
+
+    private static final class TrackedStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        TrackedStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static FileChunkInitTaskReq request(String identifier, long size) {
+        return new FileChunkInitTaskReq()
+                .setIdentifier(identifier)
+                .setFileName("photo.png")
+                .setTotalSize(size)
+                .setChunkSize((long) CHUNK_SIZE);
+    }
+}
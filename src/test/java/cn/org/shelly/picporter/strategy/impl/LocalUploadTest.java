@@ -0,0 +1,102 @@
+package cn.org.shelly.picporter.strategy.impl;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.org.shelly.picporter.config.properties.LocalProperties;
+import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
+import cn.org.shelly.picporter.model.resp.FileChunkResp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 本地存储分片上传：分片临时文件位于对外访问的存储根目录之外
+ * @author shelly
+ */
+class LocalUploadTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path dir;
+
+    private StrategyFixture fixture;
+
+    private LocalUploadStrategyImpl strategy;
+
+    private Path root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = dir.resolve("picporter");
+        fixture = new StrategyFixture("local");
+        strategy = local(root.toString(), null);
+        fixture.wire(strategy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void partsStagedOutsideRoot() throws IOException {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 2 + 10);
+        String identifier = SecureUtil.md5().digestHex(content);
+
+        FileChunkResp init = strategy.initFileChunkTask(request(identifier, content.length));
+        strategy.uploadPart(identifier, 1, Arrays.copyOfRange(content, 0, CHUNK_SIZE));
+        // 未合并的分片文件不在根目录下，静态资源映射无法访问
+        assertThat(files(root)).isEmpty();
+        assertThat(files(dir.resolve("picporter.parts"))).hasSize(1);
+
+        strategy.uploadPart(identifier, 2, Arrays.copyOfRange(content, CHUNK_SIZE, CHUNK_SIZE * 2));
+        strategy.uploadPart(identifier, 3, Arrays.copyOfRange(content, CHUNK_SIZE * 2, content.length));
+        strategy.mergeFileChunk(identifier);
+        assertThat(Files.readAllBytes(strategy.resolve(init.getObjectKey()))).isEqualTo(content);
+        assertThat(files(root)).hasSize(1);
+        assertThat(files(dir.resolve("picporter.parts"))).isEmpty();
+    }
+
+    @Test
+    void rejectsPartPathInsideRoot() {
+        assertThatThrownBy(() -> local(root.toString(), root.resolve(".parts").toString()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static LocalUploadStrategyImpl local(String path, String partPath) throws IOException {
+        LocalProperties properties = new LocalProperties();
+        properties.setPath(path);
+        properties.setPartPath(partPath);
+        LocalUploadStrategyImpl strategy = new LocalUploadStrategyImpl();
+        ReflectUtil.setFieldValue(strategy, "localProperties", properties);
+        strategy.initRoot();
+        return strategy;
+    }
+
+    private static FileChunkInitTaskReq request(String identifier, long size) {
+        return new FileChunkInitTaskReq()
+                .setIdentifier(identifier)
+                .setFileName("photo.png")
+                .setTotalSize(size)
+                .setChunkSize((long) CHUNK_SIZE);
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).toList();
+        }
+    }
+}
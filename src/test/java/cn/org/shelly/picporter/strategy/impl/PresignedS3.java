@@ -0,0 +1,236 @@
+package cn.org.shelly.picporter.strategy.impl;
+
+import cn.hutool.crypto.SecureUtil;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * 保留对象内容的S3替身
+ * <p>
+ * 预签名地址指向本地 {@link HttpServer}，按 uploadId 与 partNumber 接收浏览器直传的分片并返回ETag，
+ * 经服务上传的分片与对象直接保存，ListParts、合并、按区间读取均基于已接收的字节，用于验证分片从上传到合并的完整流程
+ * </p>
+ * @author shelly
+ */
+public class PresignedS3 extends AbstractAmazonS3 implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    public PresignedS3() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handlePut);
+        server.start();
+    }
+
+    /**
+     * 已合并的对象内容，不存在时返回null
+     */
+    public byte[] object(String key) {
+        return objects.get(key);
+    }
+
+    /**
+     * 未合并也未中止的分片上传数
+     */
+    public int pendingUploads() {
+        return uploads.size();
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentSkipListMap<>());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        String query = request.getRequestParameters().entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        try {
+            return new URL("http", "127.0.0.1", server.getAddress().getPort(),
+                    "/" + request.getBucketName() + "/" + request.getKey() + "?" + query);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        Map<Integer, byte[]> upload = uploads.get(request.getUploadId());
+        if (upload == null) {
+            throw new AmazonS3Exception("NoSuchUpload");
+        }
+        byte[] bytes = read(request.getInputStream(), request.getPartSize());
+        upload.put(request.getPartNumber(), bytes);
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(SecureUtil.md5().digestHex(bytes));
+        return result;
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+        objects.put(key, read(input, metadata.getContentLength()));
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(SecureUtil.md5().digestHex(objects.get(key)));
+        return result;
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        Map<Integer, byte[]> upload = uploads.get(request.getUploadId());
+        List<PartSummary> parts = new ArrayList<>();
+        if (upload != null) {
+            upload.forEach((partNumber, bytes) -> {
+                PartSummary summary = new PartSummary();
+                summary.setPartNumber(partNumber);
+                summary.setETag(SecureUtil.md5().digestHex(bytes));
+                summary.setSize(bytes.length);
+                parts.add(summary);
+            });
+        }
+        PartListing listing = new PartListing();
+        listing.setParts(parts);
+        listing.setTruncated(false);
+        return listing;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> upload = uploads.remove(request.getUploadId());
+        if (upload == null) {
+            throw new AmazonS3Exception("NoSuchUpload");
+        }
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        for (PartETag part : request.getPartETags()) {
+            merged.writeBytes(upload.get(part.getPartNumber()));
+        }
+        byte[] bytes = merged.toByteArray();
+        objects.put(request.getKey(), bytes);
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setKey(request.getKey());
+        result.setETag(SecureUtil.md5().digestHex(bytes));
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.getUploadId());
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String objectName) {
+        return objects.containsKey(objectName);
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        byte[] bytes = objects.get(key);
+        if (bytes == null) {
+            AmazonS3Exception e = new AmazonS3Exception("Not Found");
+            e.setStatusCode(404);
+            throw e;
+        }
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        return metadata;
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        byte[] bytes = objects.get(request.getKey());
+        if (bytes == null) {
+            throw new AmazonS3Exception("NoSuchKey");
+        }
+        long[] range = request.getRange();
+        if (range != null) {
+            bytes = Arrays.copyOfRange(bytes, (int) range[0], (int) Math.min(range[1] + 1, bytes.length));
+        }
+        S3Object object = new S3Object();
+        object.setKey(request.getKey());
+        object.setObjectContent(new ByteArrayInputStream(bytes));
+        return object;
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        objects.remove(key);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * 处理预签名地址上的分片PUT
+     */
+    private void handlePut(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream in = exchange.getRequestBody()) {
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            Map<Integer, byte[]> upload = uploads.get(query.get("uploadId"));
+            if (!"PUT".equals(exchange.getRequestMethod()) || upload == null || query.get("partNumber") == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] bytes = in.readAllBytes();
+            upload.put(Integer.parseInt(query.get("partNumber")), bytes);
+            exchange.getResponseHeaders().add("ETag", "\"" + SecureUtil.md5().digestHex(bytes) + "\"");
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    private static byte[] read(InputStream in, long size) {
+        try {
+            return in.readNBytes((int) size);
+        } catch (IOException e) {
+            throw new AmazonS3Exception(e.getMessage());
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
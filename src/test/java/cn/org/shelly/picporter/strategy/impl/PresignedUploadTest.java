@@ -0,0 +1,141 @@
+package cn.org.shelly.picporter.strategy.impl;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.org.shelly.picporter.config.properties.MinioProperties;
+import cn.org.shelly.picporter.exception.CustomException;
+import cn.org.shelly.picporter.model.req.FileChunkInitTaskReq;
+import cn.org.shelly.picporter.model.resp.FileChunkResp;
+import com.amazonaws.services.s3.model.PartSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 预签名直传：初始化任务、按预签名地址PUT分片、查询分片（与存储服务校正）、合并
+ * <p>
+ * 直传分片不经过服务，合并前没有整文件摘要，由合并后读回对象校验MD5
+ * </p>
+ * @author shelly
+ */
+class PresignedUploadTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    private StrategyFixture fixture;
+
+    private PresignedS3 s3;
+
+    private MinioUploadStrategyImpl strategy;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3 = new PresignedS3();
+        fixture = new StrategyFixture("minio");
+        MinioProperties properties = new MinioProperties();
+        properties.url = "http://localhost:9000";
+        properties.bucketName = "test";
+        properties.prefix = "test";
+        properties.afterPropertiesSet();
+        strategy = new MinioUploadStrategyImpl();
+        ReflectUtil.setFieldValue(strategy, "minioProperties", properties);
+        ReflectUtil.setFieldValue(strategy, "amazonS3Client", s3);
+        ReflectUtil.setFieldValue(strategy, "presignEnabled", true);
+        fixture.wire(strategy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+        fixture.close();
+    }
+
+    @Test
+    void presignPutSyncAndMerge() throws Exception {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE * 2 + 300);
+        String identifier = SecureUtil.md5().digestHex(content);
+
+        FileChunkResp init = strategy.initFileChunkTask(request(identifier, content.length));
+        assertThat(init.getPartUploadUrls()).containsOnlyKeys(1, 2, 3);
+
+        // 乱序直传，且只传一部分：查询时从存储服务校正分片记录，只返回缺失分片的地址
+        put(init.getPartUploadUrls().get(3), content, 3);
+        put(init.getPartUploadUrls().get(1), content, 1);
+        FileChunkResp partial = strategy.listFileChunk(identifier);
+        assertThat(partial.isFinished()).isFalse();
+        assertThat(partial.getExistPartList()).extracting(PartSummary::getPartNumber).containsExactly(1, 3);
+        assertThat(partial.getPartUploadUrls()).containsOnlyKeys(2);
+        assertThat(fixture.partRecords.get(identifier)).hasSize(2);
+
+        put(partial.getPartUploadUrls().get(2), content, 2);
+        FileChunkResp complete = strategy.listFileChunk(identifier);
+        assertThat(complete.isFinished()).isTrue();
+        assertThat(complete.getPartUploadUrls()).isEmpty();
+        assertThat(fixture.partRecords.get(identifier)).hasSize(3);
+
+        String url = strategy.mergeFileChunk(identifier);
+        String objectKey = init.getObjectKey();
+        assertThat(url).isEqualTo("http://localhost:9000/test/" + objectKey);
+        assertThat(s3.object(objectKey)).isEqualTo(content);
+        assertThat(fixture.files).singleElement().satisfies(file -> {
+            assertThat(file.getIdentifier()).isEqualTo(identifier);
+            assertThat(file.getObjectKey()).isEqualTo(objectKey);
+            assertThat(file.getFileSize()).isEqualTo(content.length);
+            assertThat(file.getStorage()).isEqualTo("minio");
+        });
+        assertThat(fixture.chunks).doesNotContainKey(identifier);
+        assertThat(fixture.partRecords).doesNotContainKey(identifier);
+    }
+
+    @Test
+    void mergeRejectsContentNotMatchingIdentifier() throws Exception {
+        byte[] content = RandomUtil.randomBytes(CHUNK_SIZE + 10);
+        String identifier = SecureUtil.md5().digestHex("other".getBytes());
+
+        FileChunkResp init = strategy.initFileChunkTask(request(identifier, content.length));
+        put(init.getPartUploadUrls().get(1), content, 1);
+        put(init.getPartUploadUrls().get(2), content, 2);
+
+        assertThatThrownBy(() -> strategy.mergeFileChunk(identifier))
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("内容与标识不一致");
+        assertThat(s3.object(init.getObjectKey())).isNull();
+        assertThat(s3.pendingUploads()).isZero();
+        assertThat(fixture.files).isEmpty();
+        assertThat(fixture.chunks).doesNotContainKey(identifier);
+    }
+
+    private static FileChunkInitTaskReq request(String identifier, long size) {
+        return new FileChunkInitTaskReq()
+                .setIdentifier(identifier)
+                .setFileName("photo.png")
+                .setTotalSize(size)
+                .setChunkSize((long) CHUNK_SIZE);
+    }
+
+    /**
+     * 按浏览器的方式将第partNumber个分片PUT到预签名地址
+     */
+    private void put(String url, byte[] content, int partNumber) throws Exception {
+        int from = (partNumber - 1) * CHUNK_SIZE;
+        byte[] part = Arrays.copyOfRange(content, from, Math.min(from + CHUNK_SIZE, content.length));
+        HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(url))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(part))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("ETag")).isPresent();
+    }
+}
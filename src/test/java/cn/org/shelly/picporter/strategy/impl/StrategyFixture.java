@@ -0,0 +1,223 @@
+package cn.org.shelly.picporter.strategy.impl;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.org.shelly.picporter.config.properties.DerivativeProperties;
+import cn.org.shelly.picporter.config.properties.PartUploadProperties;
+import cn.org.shelly.picporter.mapper.ChunkMapper;
+import cn.org.shelly.picporter.mapper.FileMapper;
+import cn.org.shelly.picporter.model.po.Chunk;
+import cn.org.shelly.picporter.model.po.File;
+import cn.org.shelly.picporter.service.IChunkPartService;
+import cn.org.shelly.picporter.service.IChunkService;
+import cn.org.shelly.picporter.service.IFileService;
+import cn.org.shelly.picporter.service.IIdentifierFilterService;
+import cn.org.shelly.picporter.service.IPresignedUrlService;
+import cn.org.shelly.picporter.strategy.StorageRegistry;
+import cn.org.shelly.picporter.strategy.UploadMetrics;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 不启动容器的上传策略测试夹具
+ * <p>
+ * 分片任务表、分片记录、文件表均保存在内存中，查询条件按参数值匹配文件标识；
+ * 同一夹具装配的多个策略共用一个 {@link StorageRegistry}，可验证按文件记录的存储模式互相委托
+ * </p>
+ * @author shelly
+ */
+public final class StrategyFixture implements AutoCloseable {
+
+    /**
+     * 分片任务表，按文件标识索引
+     */
+    public final Map<String, Chunk> chunks = new ConcurrentHashMap<>();
+
+    /**
+     * 分片记录，按文件标识索引
+     */
+    public final Map<String, List<PartSummary>> partRecords = new ConcurrentHashMap<>();
+
+    /**
+     * 文件表
+     */
+    public final List<File> files = new CopyOnWriteArrayList<>();
+
+    public final StorageRegistry storageRegistry = new StorageRegistry();
+
+    public final UploadMetrics uploadMetrics = new UploadMetrics();
+
+    public final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * @param defaultStorage 未记录存储模式的文件所在的存储，即 upload.strategy
+     */
+    public StrategyFixture(String defaultStorage) {
+        ReflectUtil.setFieldValue(storageRegistry, "defaultStorage", defaultStorage);
+        ReflectUtil.setFieldValue(uploadMetrics, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    /**
+     * 注入依赖并初始化策略，策略注册到共用的 {@link StorageRegistry}
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractUploadStrategyImpl> T wire(T target) {
+        DerivativeProperties derivativeProperties = new DerivativeProperties();
+        derivativeProperties.setEnabled(false);
+        ReflectUtil.setFieldValue(target, "prefix", "test");
+        ReflectUtil.setFieldValue(target, "isStored", true);
+        ReflectUtil.setFieldValue(target, "verifyDigest", true);
+        ReflectUtil.setFieldValue(target, "presignExpiration", 3600000L);
+        ReflectUtil.setFieldValue(target, "articleConcurrency", 8);
+        ReflectUtil.setFieldValue(target, "imageCacheCapacity", 16);
+        ReflectUtil.setFieldValue(target, "digestCacheCapacity", 16);
+        ReflectUtil.setFieldValue(target, "digestCacheTtl", 1800000L);
+        ReflectUtil.setFieldValue(target, "batchMaxFiles", 50);
+        ReflectUtil.setFieldValue(target, "batchConcurrency", 2);
+        ReflectUtil.setFieldValue(target, "partUploadProperties", new PartUploadProperties());
+        ReflectUtil.setFieldValue(target, "partUploadExecutor", executor);
+        ReflectUtil.setFieldValue(target, "proxyUploadExecutor", executor);
+        ReflectUtil.setFieldValue(target, "derivativeExecutor", executor);
+        ReflectUtil.setFieldValue(target, "derivativeProperties", derivativeProperties);
+        ReflectUtil.setFieldValue(target, "storageRegistry", storageRegistry);
+        ReflectUtil.setFieldValue(target, "uploadMetrics", uploadMetrics);
+        ReflectUtil.setFieldValue(target, "presignedUrlService", stub(IPresignedUrlService.class, Map.of()));
+        ReflectUtil.setFieldValue(target, "identifierFilterService", stub(IIdentifierFilterService.class, Map.of(
+                "mightExist", args -> true)));
+        ReflectUtil.setFieldValue(target, "fileChunkMapper", stub(ChunkMapper.class, Map.of(
+                "insert", args -> {
+                    Chunk chunk = (Chunk) args[0];
+                    chunk.setId(ids.incrementAndGet());
+                    chunks.put(chunk.getIdentifier(), chunk);
+                    return 1;
+                },
+                "exists", args -> params(args[0]).stream().anyMatch(chunks::containsKey),
+                "deleteById", args -> chunks.values().removeIf(chunk -> Objects.equals(chunk.getId(), args[0])) ? 1 : 0)));
+        ReflectUtil.setFieldValue(target, "chunkService", chunkService());
+        ReflectUtil.setFieldValue(target, "chunkPartService", stub(IChunkPartService.class, Map.of(
+                "recordPart", args -> {
+                    PartSummary part = new PartSummary();
+                    part.setPartNumber((Integer) args[1]);
+                    part.setETag((String) args[2]);
+                    part.setSize((Long) args[3]);
+                    partRecords.computeIfAbsent(((Chunk) args[0]).getIdentifier(), k -> new CopyOnWriteArrayList<>()).add(part);
+                    return null;
+                },
+                "listParts", args -> new ArrayList<>(partRecords.getOrDefault(((Chunk) args[0]).getIdentifier(), List.of())),
+                "reconcile", args -> partRecords.put(((Chunk) args[0]).getIdentifier(), new CopyOnWriteArrayList<>((List<PartSummary>) args[1])),
+                "removeParts", args -> partRecords.remove(((Chunk) args[0]).getIdentifier()))));
+        ReflectUtil.setFieldValue(target, "fileMapper", stub(FileMapper.class, Map.of(
+                "insert", args -> insertFile((File) args[0]),
+                "selectOne", args -> matchFiles(args[0]).stream().findFirst().orElse(null),
+                "selectList", args -> matchFiles(args[0]),
+                "existsByIdentifier", args -> file((String) args[0]) != null,
+                "deleteById", args -> files.removeIf(file -> Objects.equals(file.getId(), args[0])) ? 1 : 0,
+                "update", args -> 1)));
+        ReflectUtil.setFieldValue(target, "fileService", stub(IFileService.class, Map.of(
+                "saveBatch", args -> {
+                    ((Collection<File>) args[0]).forEach(this::insertFile);
+                    return true;
+                })));
+        target.init();
+        return target;
+    }
+
+    /**
+     * 分片任务服务，任务缓存与任务表合一，失效缓存后仍可从表中读到
+     */
+    public IChunkService chunkService() {
+        return stub(IChunkService.class, Map.of("getTaskByIdentifier", args -> chunks.get((String) args[0])));
+    }
+
+    /**
+     * 按标识查找文件记录，不存在时返回null
+     */
+    public File file(String identifier) {
+        return files.stream().filter(file -> identifier.equals(file.getIdentifier())).findFirst().orElse(null);
+    }
+
+    /**
+     * 写入一条文件记录，模拟存量数据
+     */
+    public File insertFile(String identifier, String objectKey, String storage) {
+        File file = new File();
+        file.setIdentifier(identifier);
+        file.setObjectKey(objectKey);
+        file.setFileName(objectKey.substring(objectKey.lastIndexOf('/') + 1));
+        file.setStorage(storage);
+        insertFile(file);
+        return file;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private int insertFile(File file) {
+        file.setId(ids.incrementAndGet());
+        files.add(file);
+        return 1;
+    }
+
+    private List<File> matchFiles(Object wrapper) {
+        List<String> identifiers = params(wrapper);
+        return files.stream().filter(file -> identifiers.contains(file.getIdentifier())).toList();
+    }
+
+    /**
+     * 查询条件中的字符串参数值，条件片段在生成SQL时才写入参数表
+     */
+    private static List<String> params(Object wrapper) {
+        AbstractWrapper<?, ?, ?> conditions = (AbstractWrapper<?, ?, ?>) wrapper;
+        conditions.getSqlSegment();
+        Map<String, Object> values = new HashMap<>(conditions.getParamNameValuePairs());
+        return values.values().stream().filter(String.class::isInstance).map(String.class::cast).toList();
+    }
+
+    /**
+     * 接口替身，未列出的方法返回对应类型的零值
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                Object result = answer.apply(args);
+                return method.getReturnType() == void.class ? null : result;
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + "Stub";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> zero(method.getReturnType());
+            };
+        });
+    }
+
+    private static Object zero(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        return type == long.class ? (Object) 0L : (Object) 0;
+    }
+}
@@ -0,0 +1,130 @@
+package cn.org.shelly.picporter.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ArticleImageRewriter} 边界情况
+ * @author shelly
+ */
+class ArticleImageRewriterTest {
+
+    private static final UnaryOperator<String> UPPER = path -> "https://cdn/" + path.toUpperCase();
+
+    @Test
+    void rewritesMarkdownAndHtml() {
+        String content = "a ![x](p1.png) b <img alt=\"y\" src=\"p2.png\"/> c <IMG SRC='p3.png'> d <img src=p4.png>";
+        assertThat(ArticleImageRewriter.rewrite(content, UPPER)).isEqualTo(
+                "a ![x](https://cdn/P1.PNG) b <img alt=\"y\" src=\"https://cdn/P2.PNG\"/> c "
+                        + "<IMG SRC='https://cdn/P3.PNG'> d <img src=https://cdn/P4.PNG>");
+        assertThat(ArticleImageRewriter.collect(content)).containsExactly("p1.png", "p2.png", "p3.png", "p4.png");
+    }
+
+    @Test
+    void keepsPathWhenMapperReturnsNull() {
+        String content = "![x](keep.png) <img src=\"keep.png\">";
+        assertThat(ArticleImageRewriter.rewrite(content, path -> null)).isEqualTo(content);
+    }
+
+    @Test
+    void collectDeduplicatesInOrder() {
+        assertThat(ArticleImageRewriter.collect("![](b.png) ![](a.png) <img src=\"b.png\">"))
+                .containsExactly("b.png", "a.png");
+    }
+
+    @Test
+    void dataSrcDoesNotShadowSrc() {
+        String content = "<img data-src=\"lazy.png\" src=\"real.png\">";
+        assertThat(ArticleImageRewriter.collect(content)).containsExactly("real.png");
+        assertThat(ArticleImageRewriter.rewrite(content, UPPER))
+                .isEqualTo("<img data-src=\"lazy.png\" src=\"https://cdn/REAL.PNG\">");
+        assertThat(ArticleImageRewriter.collect("<img data-src=\"lazy.png\">")).isEmpty();
+    }
+
+    @Test
+    void quotedGreaterThanDoesNotEndTag() {
+        String content = "<img alt=\"a > b\" title='c>d' src=\"p.png\">";
+        assertThat(ArticleImageRewriter.collect(content)).containsExactly("p.png");
+        assertThat(ArticleImageRewriter.rewrite(content, UPPER))
+                .isEqualTo("<img alt=\"a > b\" title='c>d' src=\"https://cdn/P.PNG\">");
+    }
+
+    @Test
+    void ignoresNonImageSyntax() {
+        String content = "<image src=\"x.png\"> <imgx src=\"y.png\"> ![a] (z.png) ![a](multi\nline.png) !![b](ok.png) <<img src=\"ok2.png\">";
+        assertThat(ArticleImageRewriter.collect(content)).containsExactly("ok.png", "ok2.png");
+    }
+
+    @Test
+    void imageTagWithoutSrcIsOpaque() {
+        // 无src的img标签整体按文本输出，属性中的Markdown语法不参与匹配
+        String content = "<img alt=\"![x](inner.png)\"> ![y](outer.png)";
+        assertThat(ArticleImageRewriter.collect(content)).containsExactly("outer.png");
+    }
+
+    @Test
+    void tokenLengthBoundary() {
+        int max = ArticleImageRewriter.MAX_TOKEN_LENGTH;
+        // "![a](" + path + ")" 共 path + 6 个字符
+        String fits = "![a](" + "m".repeat(max - 6) + ")";
+        String tooLong = "![a](" + "m".repeat(max - 5) + ")";
+        assertThat(ArticleImageRewriter.collect(fits)).hasSize(1);
+        assertThat(ArticleImageRewriter.collect(tooLong)).isEmpty();
+        assertThat(ArticleImageRewriter.rewrite(tooLong, UPPER)).isEqualTo(tooLong);
+        // "<img src=\"" + path + "\">" 共 path + 12 个字符
+        String htmlFits = "<img src=\"" + "h".repeat(max - 12) + "\">";
+        String htmlTooLong = "<img src=\"" + "h".repeat(max - 11) + "\">";
+        assertThat(ArticleImageRewriter.collect(htmlFits)).hasSize(1);
+        assertThat(ArticleImageRewriter.collect(htmlTooLong)).isEmpty();
+    }
+
+    @Test
+    void streamingMatchesInMemoryAcrossBufferBoundaries() throws IOException {
+        int max = ArticleImageRewriter.MAX_TOKEN_LENGTH;
+        StringBuilder sb = new StringBuilder();
+        // 图片标记落在不同位置，覆盖缓冲区重新填充时跨越边界的情况
+        for (int i = 0; i < 40; i++) {
+            sb.append("x".repeat(max - 7 + i * 131));
+            sb.append(i % 2 == 0 ? "![i](p" + i + ".png)" : "<img src=\"p" + i + ".png\">");
+        }
+        sb.append("![tail](" + "t".repeat(max - 10) + ")");
+        String content = sb.toString();
+        String expected = ArticleImageRewriter.rewrite(content, UPPER);
+        assertThat(ArticleImageRewriter.collect(content)).hasSize(41);
+        StringWriter out = new StringWriter();
+        ArticleImageRewriter.rewrite(new TrickleReader(content), out, UPPER);
+        assertThat(out.toString()).isEqualTo(expected);
+        assertThat(ArticleImageRewriter.collect(new TrickleReader(content))).hasSize(41);
+    }
+
+    /**
+     * 每次最多返回少量字符的Reader，模拟网络流
+     */
+    private static class TrickleReader extends Reader {
+
+        private final Reader delegate;
+
+        private int turn;
+
+        TrickleReader(String content) {
+            this.delegate = new StringReader(content);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return delegate.read(cbuf, off, Math.min(len, 1 + (turn++ % 997)));
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
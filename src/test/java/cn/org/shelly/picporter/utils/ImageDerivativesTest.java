@@ -0,0 +1,170 @@
+package cn.org.shelly.picporter.utils;
+
+import cn.org.shelly.picporter.config.properties.DerivativeProperties;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 衍生图工具：EXIF 方向转正、输出格式选择与格式配置校验
+ * <p>
+ * 测试图片左半红、右半蓝，按转正后红色所在的位置判断方向
+ * </p>
+ * @author shelly
+ */
+class ImageDerivativesTest {
+
+    private static final int WIDTH = 64;
+
+    private static final int HEIGHT = 32;
+
+    @Test
+    void readsOrientationInBothByteOrders() throws IOException {
+        byte[] jpeg = jpeg();
+        assertThat(ImageDerivatives.orientation(jpeg)).isEqualTo(1);
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            assertThat(ImageDerivatives.orientation(withExif(jpeg, orientation, ByteOrder.BIG_ENDIAN))).isEqualTo(orientation);
+            assertThat(ImageDerivatives.orientation(withExif(jpeg, orientation, ByteOrder.LITTLE_ENDIAN))).isEqualTo(orientation);
+        }
+    }
+
+    @Test
+    void ignoresMissingOrBrokenExif() throws IOException {
+        byte[] jpeg = jpeg();
+        assertThat(ImageDerivatives.orientation(new byte[0])).isEqualTo(1);
+        assertThat(ImageDerivatives.orientation(encode("png"))).isEqualTo(1);
+        // 段长度超出数据、方向值越界
+        byte[] truncated = withExif(jpeg, 6, ByteOrder.BIG_ENDIAN);
+        assertThat(ImageDerivatives.orientation(Arrays.copyOf(truncated, 20))).isEqualTo(1);
+        assertThat(ImageDerivatives.orientation(withExif(jpeg, 9, ByteOrder.BIG_ENDIAN))).isEqualTo(1);
+    }
+
+    @Test
+    void readAppliesOrientation() throws IOException {
+        byte[] jpeg = jpeg();
+
+        BufferedImage upright = ImageDerivatives.read(withExif(jpeg, 1, ByteOrder.BIG_ENDIAN), Long.MAX_VALUE);
+        assertThat(upright.getWidth()).isEqualTo(WIDTH);
+        assertThat(isRed(upright.getRGB(4, HEIGHT / 2))).isTrue();
+
+        // 顺时针旋转90度：左侧转到上方
+        BufferedImage rotated = ImageDerivatives.read(withExif(jpeg, 6, ByteOrder.BIG_ENDIAN), Long.MAX_VALUE);
+        assertThat(rotated.getWidth()).isEqualTo(HEIGHT);
+        assertThat(rotated.getHeight()).isEqualTo(WIDTH);
+        assertThat(isRed(rotated.getRGB(HEIGHT / 2, 4))).isTrue();
+        assertThat(isRed(rotated.getRGB(HEIGHT / 2, WIDTH - 4))).isFalse();
+
+        // 逆时针旋转90度：左侧转到下方
+        BufferedImage counter = ImageDerivatives.read(withExif(jpeg, 8, ByteOrder.LITTLE_ENDIAN), Long.MAX_VALUE);
+        assertThat(counter.getWidth()).isEqualTo(HEIGHT);
+        assertThat(isRed(counter.getRGB(HEIGHT / 2, WIDTH - 4))).isTrue();
+
+        // 旋转180度与水平翻转：左侧转到右侧
+        for (int orientation : new int[]{2, 3}) {
+            BufferedImage flipped = ImageDerivatives.read(withExif(jpeg, orientation, ByteOrder.BIG_ENDIAN), Long.MAX_VALUE);
+            assertThat(flipped.getWidth()).isEqualTo(WIDTH);
+            assertThat(isRed(flipped.getRGB(WIDTH - 4, HEIGHT / 2))).isTrue();
+        }
+    }
+
+    @Test
+    void thumbnailFollowsOrientation() throws IOException {
+        BufferedImage image = ImageDerivatives.read(withExif(jpeg(), 6, ByteOrder.BIG_ENDIAN), Long.MAX_VALUE);
+        // 转正后为竖图，按宽度缩放得到竖向缩略图
+        BufferedImage thumbnail = ImageDerivatives.resize(image, 16);
+        assertThat(thumbnail.getWidth()).isEqualTo(16);
+        assertThat(thumbnail.getHeight()).isEqualTo(32);
+    }
+
+    @Test
+    void orientTransformsMapCorners() {
+        BufferedImage src = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        src.setRGB(0, 0, 0xFF0000);
+        // 每种方向下原图左上角像素在转正后的位置
+        int[][] expected = {{2, 0}, {2, 1}, {0, 1}, {0, 0}, {1, 0}, {1, 2}, {0, 2}};
+        for (int orientation = 2; orientation <= 8; orientation++) {
+            BufferedImage dest = ImageDerivatives.orient(src, orientation);
+            int[] corner = expected[orientation - 2];
+            assertThat(dest.getRGB(corner[0], corner[1]) & 0xFFFFFF)
+                    .as("orientation %d", orientation)
+                    .isEqualTo(0xFF0000);
+        }
+        assertThat(ImageDerivatives.orient(src, 1)).isSameAs(src);
+    }
+
+    @Test
+    void transparentImagesAvoidJpg() {
+        assertThat(ImageDerivatives.resolveFormat("jpg", false)).isEqualTo("jpg");
+        assertThat(ImageDerivatives.resolveFormat("jpg", true)).isEqualTo("png");
+        assertThat(ImageDerivatives.resolveFormat("png", true)).isEqualTo("png");
+        assertThat(ImageDerivatives.resolveFormat("no-such-format", false)).isEqualTo("jpg");
+    }
+
+    @Test
+    void rejectsUnwritableFormat() {
+        DerivativeProperties properties = new DerivativeProperties();
+        assertThat(properties.getFormat()).isEqualTo("jpg");
+        properties.afterPropertiesSet();
+
+        properties.setFormat("no-such-format");
+        assertThatThrownBy(properties::afterPropertiesSet).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 60;
+    }
+
+    private static byte[] jpeg() throws IOException {
+        return encode("jpg");
+    }
+
+    private static byte[] encode(String format) throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.RED);
+            g.fillRect(0, 0, WIDTH / 2, HEIGHT);
+            g.setColor(Color.BLUE);
+            g.fillRect(WIDTH / 2, 0, WIDTH / 2, HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        return ImageDerivatives.encode(image, format, 0.9f);
+    }
+
+    /**
+     * 在 SOI 之后插入只含方向标记的 APP1 段
+     */
+    private static byte[] withExif(byte[] jpeg, int orientation, ByteOrder order) {
+        ByteBuffer tiff = ByteBuffer.allocate(26).order(order);
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? new byte[]{'M', 'M'} : new byte[]{'I', 'I'});
+        tiff.putShort((short) 42).putInt(8);
+        // IFD0：1 个条目，方向 SHORT x1
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+        byte[] exif = {'E', 'x', 'i', 'f', 0, 0};
+        int length = 2 + exif.length + tiff.capacity();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes(exif);
+        out.writeBytes(tiff.array());
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
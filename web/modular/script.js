@@ -6,6 +6,7 @@ let fileQueue = []; // 上传队列
 let currentPage = 1;
 let pageSize = 20;
 let serverFiles = [];
+let serverTotal = 0;
 let filteredServerFiles = [];
 
 // DOM 元素
@@ -465,6 +466,7 @@ async function uploadLargeFile(file) {
     file.uploadId = taskInfo.uploadId;
     file.chunkNum = taskInfo.chunkNum;
     file.uploadedChunks = taskInfo.existPartList || [];
+    file.partUploadUrls = taskInfo.partUploadUrls || null;
 
     // 如果已经完成，直接返回
     if (taskInfo.finished) {
@@ -514,17 +516,29 @@ async function uploadChunks(file) {
         const end = Math.min(start + CHUNK_SIZE, file.size);
         const chunk = file.file.slice(start, end);
 
-        const formData = new FormData();
-        formData.append('file', chunk);
+        const presignedUrl = file.partUploadUrls && file.partUploadUrls[partNumber];
+        if (presignedUrl) {
+            // 直传存储服务，不经过后端
+            const response = await fetch(presignedUrl, {
+                method: 'PUT',
+                body: chunk
+            });
+            if (!response.ok) {
+                throw new Error(`分片 ${partNumber} 上传失败: HTTP ${response.status}`);
+            }
+        } else {
+            const formData = new FormData();
+            formData.append('file', chunk);
 
-        const response = await fetch(`${API_BASE}/upload/uploadPart/${file.identifier}/${partNumber}`, {
-            method: 'POST',
-            body: formData
-        });
+            const response = await fetch(`${API_BASE}/upload/uploadPart/${file.identifier}/${partNumber}`, {
+                method: 'POST',
+                body: formData
+            });
 
-        const result = await response.json();
-        if (result.code !== 200) {
-            throw new Error(`分片 ${partNumber} 上传失败: ${result.message}`);
+            const result = await response.json();
+            if (result.code !== 200) {
+                throw new Error(`分片 ${partNumber} 上传失败: ${result.message}`);
+            }
         }
 
         file.progress = ((i + 1) / file.chunkNum) * 100;
@@ -576,7 +590,10 @@ async function handleArticleProcess() {
         }
 
         // 更新文章内容
-        articleContent.value = result.data;
+        articleContent.value = result.data.content;
+        if (result.data.errors && result.data.errors.length > 0) {
+            showNotification(`${result.data.errors.length} 张图片上传失败: ${result.data.errors.map(e => e.path).join(', ')}`, 'warning', 6000);
+        }
         showNotification('文章图片处理完成！', 'success');
 
     } catch (error) {
@@ -600,7 +617,8 @@ async function loadServerFiles() {
             throw new Error(result.message || '加载失败');
         }
 
-        serverFiles = result.data || [];
+        serverFiles = (result.data && result.data.records) || [];
+        serverTotal = (result.data && result.data.total) || 0;
         renderServerFileList();
         renderPagination();
 
@@ -656,7 +674,7 @@ function renderServerFileList() {
 
 // 渲染分页
 function renderPagination() {
-    const totalPages = Math.ceil(serverFiles.length / pageSize);
+    const totalPages = Math.max(Math.ceil(serverTotal / pageSize), 1);
     const pagination = document.getElementById('pagination');
 
     let html = '';